@@ -0,0 +1,281 @@
+package uk.groupdcoursework;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vehicle auction engine: many lots open at once, any number of bidders
+ * per lot, and bids from any number of threads
+ *
+ * Each lot keeps its highest bid and bidder in a single AtomicLong, so a
+ * bid is a read and at most a few compare-and-set attempts, with no locks.
+ * The long is packed as:
+ * <pre>
+ * bit 63      lot closed
+ * bits 20-62  highest bid in cents (up to about 87 billion)
+ * bits 0-19   bidder id (0 to 1,048,575)
+ * </pre>
+ * A bid only replaces the leader if it is strictly higher, so on equal bids
+ * the earlier one wins. Closing sets bit 63 in the same word, so every bid
+ * is either counted before the close or rejected after it.
+ *
+ * Money is held in whole cents as a long, so totals are exact.
+ */
+public class AuctionEngine {
+
+    public static final int MAX_BIDDER_ID = (1 << 20) - 1;
+    public static final long MAX_BID_CENTS = (1L << 43) - 1;
+
+    private static final int BIDDER_BITS = 20;
+    private static final long CLOSED = Long.MIN_VALUE;
+    private static final long NO_BIDDER = -1;
+
+    private final ConcurrentHashMap<String, Lot> lots = new ConcurrentHashMap<>();
+
+    /**
+     * What happened to a bid
+     */
+    public enum BidOutcome {
+        /** The bid is now the highest on the lot */
+        LEADING,
+        /** The lot already has an equal or higher bid */
+        TOO_LOW,
+        /** The lot was closed before the bid arrived */
+        CLOSED
+    }
+
+    /**
+     * One vehicle being auctioned
+     */
+    public static final class Lot {
+        private final String registrationNumber;
+        private final long costCents;
+        private final AtomicLong best = new AtomicLong();
+        private final LongAdder bids = new LongAdder();
+
+        Lot(String registrationNumber, long costCents) {
+            this.registrationNumber = registrationNumber;
+            this.costCents = costCents;
+        }
+
+        public String getRegistrationNumber() {
+            return registrationNumber;
+        }
+
+        public long getCostCents() {
+            return costCents;
+        }
+
+        /**
+         * Place a bid; safe to call from any thread
+         */
+        public BidOutcome bid(int bidderId, long cents) {
+            if (bidderId < 0 || bidderId > MAX_BIDDER_ID) {
+                throw new IllegalArgumentException("Bidder id out of range: " + bidderId);
+            }
+            if (cents <= 0 || cents > MAX_BID_CENTS) {
+                throw new IllegalArgumentException("Bid out of range: " + cents + " cents");
+            }
+            long offer = (cents << BIDDER_BITS) | bidderId;
+            long current = best.get();
+            while (true) {
+                if (current < 0) {
+                    return BidOutcome.CLOSED;
+                }
+                if (cents(current) >= cents) {
+                    bids.increment();
+                    return BidOutcome.TOO_LOW;
+                }
+                long witness = best.compareAndExchange(current, offer);
+                if (witness == current) {
+                    bids.increment();
+                    return BidOutcome.LEADING;
+                }
+                current = witness;
+            }
+        }
+
+        /**
+         * Highest bid so far in cents, 0 if there is none
+         */
+        public long getHighestBidCents() {
+            return cents(best.get());
+        }
+
+        /**
+         * Bidder holding the highest bid, or -1 if there is none
+         */
+        public int getHighestBidder() {
+            long current = best.get();
+            return cents(current) == 0 ? (int) NO_BIDDER : bidder(current);
+        }
+
+        /**
+         * Number of bids accepted for consideration, leading or not
+         */
+        public long getBidCount() {
+            return bids.sum();
+        }
+
+        public boolean isClosed() {
+            return best.get() < 0;
+        }
+
+        /**
+         * Stop taking bids, returning the final packed state
+         */
+        long close() {
+            return best.getAndUpdate(v -> v | CLOSED);
+        }
+    }
+
+    /**
+     * Outcome of a closed lot
+     */
+    public static final class LotResult {
+        private final String registrationNumber;
+        private final int winningBidder;
+        private final long highestBidCents;
+        private final long balanceCents;
+        private final long profitLossCents;
+        private final long bidCount;
+
+        LotResult(String registrationNumber, int winningBidder, long highestBidCents,
+                long balanceCents, long profitLossCents, long bidCount) {
+            this.registrationNumber = registrationNumber;
+            this.winningBidder = winningBidder;
+            this.highestBidCents = highestBidCents;
+            this.balanceCents = balanceCents;
+            this.profitLossCents = profitLossCents;
+            this.bidCount = bidCount;
+        }
+
+        public String getRegistrationNumber() {
+            return registrationNumber;
+        }
+
+        /**
+         * Winning bidder id, or -1 if nobody bid
+         */
+        public int getWinningBidder() {
+            return winningBidder;
+        }
+
+        public long getHighestBidCents() {
+            return highestBidCents;
+        }
+
+        /**
+         * Highest bid less the deposits already paid
+         */
+        public long getBalanceCents() {
+            return balanceCents;
+        }
+
+        /**
+         * Highest bid less the vehicle cost and expenses; negative for a loss
+         */
+        public long getProfitLossCents() {
+            return profitLossCents;
+        }
+
+        public long getBidCount() {
+            return bidCount;
+        }
+
+        @Override
+        public String toString() {
+            return registrationNumber + ": highest bid " + formatCents(highestBidCents) +
+                (winningBidder < 0 ? " (no bids)" : " by bidder " + winningBidder) +
+                ", balance " + formatCents(balanceCents) +
+                (profitLossCents > 0 ? ", profit " : ", loss ") + formatCents(profitLossCents) +
+                ", " + bidCount + " bids";
+        }
+    }
+
+    /**
+     * Open a lot for a vehicle
+     *
+     * @throws IllegalStateException if a lot for the vehicle is already open
+     */
+    public Lot openLot(String registrationNumber, long costCents) {
+        Lot lot = new Lot(registrationNumber, costCents);
+        if (lots.putIfAbsent(registrationNumber, lot) != null) {
+            throw new IllegalStateException("Lot already open for " + registrationNumber);
+        }
+        return lot;
+    }
+
+    /**
+     * Place a bid on an open lot; safe to call from any thread
+     *
+     * @throws IllegalArgumentException if there is no such lot
+     */
+    public BidOutcome bid(String registrationNumber, int bidderId, long cents) {
+        return lot(registrationNumber).bid(bidderId, cents);
+    }
+
+    /**
+     * Close a lot and work out what is owed and earned
+     *
+     * Bids that arrive after this call are rejected. The lot is removed, so
+     * its vehicle can be auctioned again.
+     */
+    public LotResult closeLot(String registrationNumber, long depositsCents, long expensesCents) {
+        Lot lot = lot(registrationNumber);
+        long last = lot.close();
+        if (last < 0) {
+            throw new IllegalStateException("Lot already closed for " + registrationNumber);
+        }
+        lots.remove(registrationNumber, lot);
+        long highest = cents(last);
+        int bidder = highest == 0 ? (int) NO_BIDDER : bidder(last);
+        return new LotResult(registrationNumber, bidder, highest,
+            Math.subtractExact(highest, depositsCents),
+            Math.subtractExact(highest, Math.addExact(lot.costCents, expensesCents)),
+            lot.getBidCount());
+    }
+
+    /**
+     * Lots currently open
+     */
+    public Collection<Lot> getOpenLots() {
+        return lots.values();
+    }
+
+    /**
+     * Parse an amount such as "1500" or "1499.99" to whole cents, rounding
+     * half up past two decimal places
+     */
+    public static long toCents(String amount) {
+        return new BigDecimal(amount.trim()).setScale(2, RoundingMode.HALF_UP)
+            .movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Format whole cents as an amount with two decimal places
+     */
+    public static String formatCents(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+
+    private Lot lot(String registrationNumber) {
+        Lot lot = lots.get(registrationNumber);
+        if (lot == null) {
+            throw new IllegalArgumentException("No open lot for " + registrationNumber);
+        }
+        return lot;
+    }
+
+    private static long cents(long packed) {
+        return (packed & ~CLOSED) >>> BIDDER_BITS;
+    }
+
+    private static int bidder(long packed) {
+        return (int) (packed & MAX_BIDDER_ID);
+    }
+}
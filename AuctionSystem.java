@@ -10,63 +10,67 @@ public class AuctionSystem {
     public static void main(String[] arg){
         
         // 1: System to accept details of the vehicle
-        // 2: Accet 3 bidders and their prices.
+        // 2: Accept any number of bidders and their prices.
         // 3: Pick the highest bidder.
-        // 4: Accept deposts and expenses.
+        // 4: Accept deposits and expenses.
         // 5: get calculations
         
         //scanner input to allow the user input details for the auction
         Scanner input = new Scanner(System.in);
+        AuctionEngine engine = new AuctionEngine();
         
         //need to capture vehicle details
         System.out.print("Enter vehicle registration number:  ");
-        String regNo = input.nextLine();
+        String regNo = input.nextLine().trim();
         
         System.out.print("Enter vehicle cost: ");
-        double vehicleCost = input.nextDouble(); 
+        long vehicleCost = AuctionEngine.toCents(input.nextLine());
+        AuctionEngine.Lot lot = engine.openLot(regNo, vehicleCost);
         
-        // Bidders
-        System.out.print("Enter Bidder 1 price: ");
-        double bid1 = input.nextDouble();
-        
-        System.out.print("Enter Bidder 2 price: ");
-        double bid2 = input.nextDouble();
-        
-        System.out.print("Enter Bidder 3 price: ");
-        double bid3 = input.nextDouble();
-        
-        //Find the highest bidder, (variabl highestBid stores the the higest bidder)
-        double highestBid = bid1;
-
-        if (bid2 > highestBid)
-            highestBid = bid2;
-
-        if (bid3 > highestBid)
-            highestBid = bid3;
+        // Bidders, until a blank line; the engine keeps the highest bid
+        int bidder = 1;
+        while (true) {
+            System.out.print("Enter Bidder " + bidder + " price (blank to finish): ");
+            if (!input.hasNextLine()) {
+                break;
+            }
+            String price = input.nextLine();
+            if (price.isBlank()) {
+                break;
+            }
+            try {
+                lot.bid(bidder, AuctionEngine.toCents(price));
+                bidder++;
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                // Not a usable price, such as "1,500" or 0; ask the same bidder again
+                System.out.println("Please enter a price above 0, such as 1500 or 1499.99");
+            }
+        }
         
          // Getting deposits and expenses
         System.out.println("Enter total deposits made: ");
-        double deposits = input.nextDouble();
+        long deposits = AuctionEngine.toCents(input.nextLine());
 
         System.out.println("Enter expenses incurred: ");
-        double expenses = input.nextDouble();
-        
-        
-        // Getting the Balance
-        double balance = highestBid - deposits;
+        long expenses = AuctionEngine.toCents(input.nextLine());
         
-        //  Capture the Profit or Loss
-        double profitLoss = highestBid - (vehicleCost + expenses);
+        // Closing the lot works out the Balance and the Profit or Loss
+        AuctionEngine.LotResult result = engine.closeLot(regNo, deposits, expenses);
         
         // Output
         System.out.println("\nVehicle Registration: " + regNo);
-        System.out.println("Highest Bid: " + highestBid);
-        System.out.println("Balance Left: " + balance);
+        if (result.getWinningBidder() < 0) {
+            System.out.println("No bids were made");
+        } else {
+            System.out.println("Highest Bid: " + AuctionEngine.formatCents(result.getHighestBidCents()) +
+                " (Bidder " + result.getWinningBidder() + ")");
+        }
+        System.out.println("Balance Left: " + AuctionEngine.formatCents(result.getBalanceCents()));
         
-         if (profitLoss > 0) {
-            System.out.println("Profit Made: " + profitLoss);
+         if (result.getProfitLossCents() > 0) {
+            System.out.println("Profit Made: " + AuctionEngine.formatCents(result.getProfitLossCents()));
         } else {
-            System.out.println("Loss Made: " + profitLoss);
+            System.out.println("Loss Made: " + AuctionEngine.formatCents(result.getProfitLossCents()));
         }
          
         
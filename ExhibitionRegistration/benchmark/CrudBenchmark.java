@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Throughput and latency of the participant CRUD paths by dataset size
+ *
+ * For each dataset size the store is filled with synthetic participants
+ * through {@code insertBatch}, then four phases run against it: single
+ * inserts of new IDs, {@code findById} on random IDs, {@code update} of
+ * random rows and {@code delete} of the rows just inserted, which brings
+ * the store back to its starting size. Every phase runs once unmeasured
+ * to warm up the JIT and caches. Reports operations per second and
+ * latency percentiles per phase.
+ *
+ * By default each size gets a fresh {@link LogParticipantStore} in a
+ * temporary directory. Pass a JDBC URL to measure the SQL backend instead;
+ * its Participants table must start empty and is emptied again after each
+ * size, so point it at a scratch copy of the database and put the driver
+ * on the classpath.
+ *
+ * Usage: {@code ant benchmark-crud}, or
+ * {@code java CrudBenchmark [sizes] [operations] [imageShare] [location]},
+ * e.g. {@code java CrudBenchmark 1000,10000,100000,1000000 10000 0.5}.
+ */
+public class CrudBenchmark {
+
+    private static final int IMAGE_POOL_SIZE = 8;
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static long sink;
+
+    public static void main(String[] args) throws IOException, SQLException {
+        long[] sizes = Arrays.stream((args.length > 0 ? args[0] : "1000,10000,100000,1000000").split(","))
+            .mapToLong(size -> Long.parseLong(size.trim())).toArray();
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        double imageShare = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        String location = args.length > 3 ? args[3] : null;
+
+        Path workDir = Files.createTempDirectory("crud-benchmark");
+        try {
+            // Real stored images, so rows carry valid hashes like production rows
+            ImageStore images = new ImageStore(workDir.resolve("idimages"));
+            List<String> hashes = new ArrayList<>();
+            for (int i = 0; i < IMAGE_POOL_SIZE; i++) {
+                hashes.add(images.put(SyntheticParticipants.image(320, 400, "jpg", i)));
+            }
+            SyntheticParticipants data = new SyntheticParticipants(imageShare, hashes);
+
+            System.out.printf("Store: %s, %,d operations per phase, %.0f%% of rows with an ID image%n",
+                location == null ? "log (temporary file)" : location, operations, imageShare * 100);
+            for (long size : sizes) {
+                String sizeLocation = location != null ? location
+                    : LogParticipantStore.LOCATION_PREFIX + workDir.resolve("participants-" + size + ".log");
+                try (ParticipantStore store = StoreMigration.open(sizeLocation)) {
+                    run(store, data, size, operations);
+                    if (location != null) {
+                        // Shared scratch table: empty it for the next size
+                        for (long n = 0; n < size; n++) {
+                            store.delete(SyntheticParticipants.id(n));
+                        }
+                    }
+                }
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static void run(ParticipantStore store, SyntheticParticipants data, long size, int operations)
+            throws SQLException {
+        if (store.count() > 0) {
+            throw new SQLException("Benchmark store is not empty");
+        }
+
+        System.out.println();
+        long start = System.nanoTime();
+        for (long from = 0; from < size; from += BulkImporter.DEFAULT_CHUNK_SIZE) {
+            List<Participant> chunk = data.range(from, Math.min(size, from + BulkImporter.DEFAULT_CHUNK_SIZE));
+            store.insertBatch(chunk, (error, index) -> {
+                throw new IllegalStateException("Preload failed: " + error.getMessage(), error);
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Dataset %,d rows, loaded in %.1f s (%,.0f rows/s)%n", size, seconds, size / seconds);
+
+        // Warm-up pass over IDs past the measured range, results discarded
+        phases(store, data, size, size + operations, Math.min(operations, 5_000), new Random(7), false);
+        phases(store, data, size, size, operations, new Random(42), true);
+    }
+
+    /**
+     * Insert, find, update and delete {@code operations} rows each; new
+     * rows are numbered from {@code firstNew}
+     */
+    private static void phases(ParticipantStore store, SyntheticParticipants data, long size,
+            long firstNew, int operations, Random random, boolean report) throws SQLException {
+        Latencies insert = new Latencies(operations);
+        insert.start();
+        for (int i = 0; i < operations; i++) {
+            Participant p = data.participant(firstNew + i);
+            long opStart = System.nanoTime();
+            sink += store.insert(p);
+            insert.record(opStart);
+        }
+
+        Latencies find = new Latencies(operations);
+        find.start();
+        for (int i = 0; i < operations; i++) {
+            String id = SyntheticParticipants.id(randomRow(random, size, firstNew, operations));
+            long opStart = System.nanoTime();
+            Participant found = store.findById(id);
+            find.record(opStart);
+            if (found == null) {
+                throw new IllegalStateException("Missing participant " + id);
+            }
+            sink += found.getName().length();
+        }
+
+        Latencies update = new Latencies(operations);
+        update.start();
+        for (int i = 0; i < operations; i++) {
+            Participant p = data.participant(randomRow(random, size, firstNew, operations), i + 1);
+            long opStart = System.nanoTime();
+            sink += store.update(p);
+            update.record(opStart);
+        }
+
+        Latencies delete = new Latencies(operations);
+        delete.start();
+        for (int i = 0; i < operations; i++) {
+            String id = SyntheticParticipants.id(firstNew + i);
+            long opStart = System.nanoTime();
+            sink += store.delete(id);
+            delete.record(opStart);
+        }
+
+        if (report) {
+            System.out.println(Latencies.header());
+            System.out.println(insert.row("insert"));
+            System.out.println(find.row("findById"));
+            System.out.println(update.row("update"));
+            System.out.println(delete.row("delete"));
+        }
+    }
+
+    /**
+     * A random row that is currently stored: one of the preloaded rows or
+     * one inserted in this pass
+     */
+    private static long randomRow(Random random, long size, long firstNew, int operations) {
+        long n = (long) (random.nextDouble() * (size + operations));
+        return n < size ? n : firstNew + (n - size);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
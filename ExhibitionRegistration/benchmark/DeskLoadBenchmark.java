@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Many desks registering against one participant server at once
+ *
+ * Each simulated desk runs on its own virtual thread with its own
+ * {@link RemoteParticipantStore} and loops through a desk's day: register
+ * a participant, look them up, correct their details, look them up again,
+ * and every fourth one cancels. Latencies are recorded per operation as
+ * the desk sees them, HTTP round trip included.
+ *
+ * Without a URL an in-process {@link ParticipantServer} is started on a
+ * temporary {@link LogParticipantStore}. Pass a server URL to load a
+ * running server instead; the desks only touch IDs they created.
+ *
+ * Usage: {@code ant benchmark-server}, or
+ * {@code java DeskLoadBenchmark [desks] [seconds] [url]}.
+ */
+public class DeskLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int desks = args.length > 0 ? Integer.parseInt(args[0]) : 48;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String url = args.length > 2 ? args[2] : null;
+
+        Path workDir = Files.createTempDirectory("desk-load");
+        ParticipantServer server = null;
+        try {
+            if (url == null) {
+                ParticipantStore store = LogParticipantStore.open(
+                    LogParticipantStore.LOCATION_PREFIX + workDir.resolve("participants.log"));
+                server = new ParticipantServer(store, new ImageStore(workDir.resolve("idimages")),
+                    new OperationMetrics(),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                server.start();
+                url = "http://127.0.0.1:" + server.getPort() + "/";
+            }
+
+            System.out.printf("%d desks against %s for %d s%n", desks, url, seconds);
+            OperationMetrics metrics = new OperationMetrics();
+            LongAdder operations = new LongAdder();
+            LongAdder failures = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int d = 0; d < desks; d++) {
+                int desk = d;
+                URI base = URI.create(url);
+                threads.add(Thread.ofVirtual().name("desk-" + desk).start(() ->
+                    runDesk(desk, new InstrumentedParticipantStore(new RemoteParticipantStore(base, null), metrics),
+                        deadline, operations, failures)));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%,d operations in %.1f s: %,.0f ops/s, %,d failed%n",
+                operations.sum(), elapsed, operations.sum() / elapsed, failures.sum());
+            System.out.print(metrics.getSummary());
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static void runDesk(int desk, ParticipantStore store, long deadline,
+            LongAdder operations, LongAdder failures) {
+        SyntheticParticipants data = new SyntheticParticipants(0, List.of());
+        Random random = new Random(desk);
+        // Numbers unique to this desk and run
+        long next = (desk + 1) * 100_000_000L + (System.currentTimeMillis() % 1000) * 100_000L;
+        while (System.nanoTime() < deadline) {
+            long n = next++;
+            String id = SyntheticParticipants.id(n);
+            try {
+                store.insert(data.participant(n));
+                store.findById(id);
+                store.update(data.participant(n, 1 + random.nextInt(3)));
+                store.findById(id);
+                operations.add(4);
+                if (n % 4 == 0) {
+                    store.delete(id);
+                    operations.increment();
+                }
+            } catch (SQLException e) {
+                failures.increment();
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
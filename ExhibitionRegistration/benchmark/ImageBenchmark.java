@@ -0,0 +1,83 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Cost of decoding and scaling ID images by source size and format
+ *
+ * For each synthetic photo this measures three things: a full
+ * {@code ImageIO.read} followed by {@link Thumbnails#scaleToFit}, which is
+ * what the form did before thumbnails were decoded with subsampling;
+ * {@link Thumbnails#fromFile}, which the form uses now; and
+ * {@link ImageIngest#ingest}, which bounds and stores a newly chosen image.
+ * Latencies are per image after warm-up.
+ *
+ * Usage: {@code ant benchmark-images}, or
+ * {@code java ImageBenchmark [iterations]}.
+ */
+public class ImageBenchmark {
+
+    private static final int[][] SIZES = {{320, 400}, {1024, 768}, {2048, 1536}, {4000, 3000}};
+    private static final String[] FORMATS = {"jpg", "png"};
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static long sink;
+
+    private interface Operation {
+        void run() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int thumbnail = ParticipantService.THUMBNAIL_SIZE;
+
+        Path workDir = Files.createTempDirectory("image-benchmark");
+        try {
+            ImageIngest ingest = new ImageIngest(new ImageStore(workDir.resolve("idimages")));
+            System.out.printf("%d measured iterations per image, %dx%d thumbnails%n",
+                iterations, thumbnail, thumbnail);
+            for (String format : FORMATS) {
+                for (int[] size : SIZES) {
+                    byte[] encoded = SyntheticParticipants.image(size[0], size[1], format, size[0]);
+                    Path file = workDir.resolve(size[0] + "x" + size[1] + "." + format);
+                    Files.write(file, encoded);
+
+                    System.out.println();
+                    System.out.printf("%s %dx%d, %,d bytes%n", format, size[0], size[1], encoded.length);
+                    System.out.println(Latencies.header());
+                    measure("full+scale", iterations, () -> {
+                        BufferedImage full = ImageIO.read(new ByteArrayInputStream(Files.readAllBytes(file)));
+                        sink += Thumbnails.scaleToFit(full, thumbnail, thumbnail).getWidth();
+                    });
+                    measure("thumbnail", iterations, () ->
+                        sink += Thumbnails.fromFile(file, thumbnail, thumbnail).getWidth());
+                    measure("ingest", iterations, () ->
+                        sink += ingest.ingest(file).length());
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(workDir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void measure(String name, int iterations, Operation operation) throws IOException {
+        for (int i = 0; i < Math.max(3, iterations / 2); i++) {
+            operation.run();
+        }
+        Latencies latencies = new Latencies(iterations);
+        latencies.start();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            latencies.record(start);
+        }
+        System.out.println(latencies.row(name));
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Arrays;
+
+/**
+ * Per-operation latencies of one benchmark phase
+ *
+ * Each sample is recorded in a preallocated array, so recording costs one
+ * store and no allocation; percentiles are computed once the phase is over.
+ */
+final class Latencies {
+
+    private final long[] samples;
+    private int count;
+    private long started;
+    private long elapsed;
+
+    Latencies(int capacity) {
+        samples = new long[capacity];
+    }
+
+    void start() {
+        started = System.nanoTime();
+    }
+
+    /**
+     * Record one operation that began at {@code opStart} (from
+     * {@link System#nanoTime()})
+     */
+    void record(long opStart) {
+        long now = System.nanoTime();
+        samples[count++] = now - opStart;
+        elapsed = now - started;
+    }
+
+    static String header() {
+        return String.format("%-10s %10s %12s %10s %10s %10s %10s %10s",
+            "operation", "ops", "ops/s", "p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+    }
+
+    /**
+     * One table row: throughput over the whole phase and latency percentiles
+     */
+    String row(String operation) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%-10s %,10d %,12.0f %10.1f %10.1f %10.1f %10.1f %10.1f",
+            operation, count, count * 1e9 / Math.max(1, elapsed),
+            micros(sorted, 0.50), micros(sorted, 0.90), micros(sorted, 0.99),
+            micros(sorted, 0.999), count == 0 ? 0 : sorted[count - 1] / 1000.0);
+    }
+
+    private static double micros(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+}
@@ -0,0 +1,121 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic participants and ID images for the benchmarks
+ *
+ * Participant {@code n} always gets the same Registration ID and fields, so
+ * a benchmark can address any row of a generated dataset without keeping
+ * it in memory. A configurable share of rows refers to an ID image; the
+ * hashes are taken round-robin from a small pool of images that the caller
+ * has put into an {@link ImageStore}, as real rows would.
+ */
+final class SyntheticParticipants {
+
+    private static final String[] DEPARTMENTS = {
+        "Computer Science", "Engineering", "Business", "Arts", "Science", "Health"
+    };
+    private static final String[] FIRST_NAMES = {
+        "Ruth", "David", "Abdul", "Jolly", "Amina", "Joseph", "Grace", "Samuel", "Esther", "Peter"
+    };
+    private static final String[] LAST_NAMES = {
+        "Namugerwa", "Okello", "Mungufeni", "Lane", "Kato", "Achieng", "Mensah", "Banda"
+    };
+
+    private final double imageShare;
+    private final List<String> imageHashes;
+
+    /**
+     * Generator where {@code imageShare} of the rows (0 to 1) have an image
+     * from {@code imageHashes}
+     */
+    SyntheticParticipants(double imageShare, List<String> imageHashes) {
+        if (imageShare > 0 && imageHashes.isEmpty()) {
+            throw new IllegalArgumentException("Rows with images need at least one image hash");
+        }
+        this.imageShare = imageShare;
+        this.imageHashes = imageHashes;
+    }
+
+    static String id(long n) {
+        return String.format("BM%08d", n);
+    }
+
+    /**
+     * Participant number {@code n} as first registered
+     */
+    Participant participant(long n) {
+        return participant(n, 0);
+    }
+
+    /**
+     * Participant number {@code n} after {@code revision} updates
+     *
+     * Every revision changes the department, partner, contact number and
+     * email, so updates really rewrite the row.
+     */
+    Participant participant(long n, int revision) {
+        Random random = new Random(n * 31 + revision);
+        String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
+            LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String partner = random.nextBoolean() ? null : FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String contact = "+256 7" + (10000000 + random.nextInt(90000000));
+        String email = "participant" + n + (revision == 0 ? "" : "." + revision) + "@live.vu.edu.au";
+        String imageHash = null;
+        if (random.nextDouble() < imageShare) {
+            imageHash = imageHashes.get((int) (n % imageHashes.size()));
+        }
+        return new Participant(id(n), name, DEPARTMENTS[random.nextInt(DEPARTMENTS.length)],
+            partner, contact, email, imageHash);
+    }
+
+    /**
+     * Participants {@code from} (inclusive) to {@code to} (exclusive)
+     */
+    List<Participant> range(long from, long to) {
+        List<Participant> rows = new ArrayList<>((int) (to - from));
+        for (long n = from; n < to; n++) {
+            rows.add(participant(n));
+        }
+        return rows;
+    }
+
+    /**
+     * An encoded photo-like test image of the given size
+     *
+     * Gradients plus noise, so JPEG and PNG compress it about as well as a
+     * real ID photo rather than a flat colour.
+     */
+    static byte[] image(int width, int height, String format, long seed) throws IOException {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int r = (x * 255 / width + random.nextInt(24)) & 0xFF;
+                int g = (y * 255 / height + random.nextInt(24)) & 0xFF;
+                int b = ((x + y) * 127 / (width + height) + random.nextInt(24)) & 0xFF;
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(new Color(random.nextInt(0xFFFFFF)));
+            g.fillOval(width / 4, height / 6, width / 2, height * 2 / 3);
+        } finally {
+            g.dispose();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, out)) {
+            throw new IOException("No writer for " + format);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Compares participant validation strategies on a synthetic batch
+ *
+ * Runs three implementations of the same rules over the same rows:
+ * {@code String.matches} as the registration form used to (the pattern is
+ * compiled on every call), precompiled {@link Pattern}s, and
+ * {@link ParticipantValidator#validateBatch} with its hand-written
+ * scanners. Reports nanoseconds and bytes allocated per row after warm-up.
+ *
+ * Usage: {@code ant benchmark-validator}, or
+ * {@code java ValidatorBenchmark [rows] [iterations]}.
+ */
+public class ValidatorBenchmark {
+
+    private static final String CONTACT_REGEX = "^[0-9+\\-\\s()]+$";
+    private static final String EMAIL_REGEX = "^[A-Za-z0-9+_.-]+@(.+)$";
+    private static final Pattern CONTACT = Pattern.compile(CONTACT_REGEX);
+    private static final Pattern EMAIL = Pattern.compile(EMAIL_REGEX);
+
+    // Keeps results alive so the JIT cannot drop the work
+    private static long sink;
+
+    private interface Strategy {
+        int validCount(List<Participant> rows);
+    }
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<Participant> batch = generate(rows, new Random(42));
+
+        System.out.printf("Validating %,d rows, %d measured iterations%n", rows, iterations);
+        System.out.printf("%-22s %12s %12s %14s%n", "strategy", "ns/row", "rows/s", "bytes/row");
+        run("String.matches", batch, iterations, ValidatorBenchmark::legacy);
+        run("precompiled Pattern", batch, iterations, ValidatorBenchmark::precompiled);
+        run("scanner batch", batch, iterations,
+            list -> ParticipantValidator.validateBatch(list, (violation, index) -> sink++));
+    }
+
+    private static void run(String name, List<Participant> batch, int iterations, Strategy strategy) {
+        // Warm-up until the JIT has compiled the hot loop
+        for (int i = 0; i < Math.max(3, iterations / 2); i++) {
+            sink += strategy.validCount(batch);
+        }
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += strategy.validCount(batch);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        double total = (double) batch.size() * iterations;
+        System.out.printf("%-22s %12.1f %,12.0f %14.1f%n",
+            name, elapsed / total, total * 1e9 / elapsed, bytes / total);
+    }
+
+    /**
+     * The rules as the form checked them before the validator was rewritten
+     */
+    private static int legacy(List<Participant> rows) {
+        int valid = 0;
+        for (Participant p : rows) {
+            if (isBlank(p.getRegistrationId()) || isBlank(p.getName()) || isBlank(p.getDepartment())
+                    || isBlank(p.getContactNumber()) || !p.getContactNumber().matches(CONTACT_REGEX)
+                    || isBlank(p.getEmailAddress()) || !p.getEmailAddress().matches(EMAIL_REGEX)) {
+                continue;
+            }
+            valid++;
+        }
+        return valid;
+    }
+
+    private static int precompiled(List<Participant> rows) {
+        int valid = 0;
+        for (Participant p : rows) {
+            if (isBlank(p.getRegistrationId()) || isBlank(p.getName()) || isBlank(p.getDepartment())
+                    || isBlank(p.getContactNumber()) || !CONTACT.matcher(p.getContactNumber()).matches()
+                    || isBlank(p.getEmailAddress()) || !EMAIL.matcher(p.getEmailAddress()).matches()) {
+                continue;
+            }
+            valid++;
+        }
+        return valid;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * Rows shaped like a festival import: mostly valid, about one in
+     * twenty with a bad contact number or email
+     */
+    static List<Participant> generate(int count, Random random) {
+        String[] departments = {"Computer Science", "Engineering", "Business", "Arts", "Science", "Health"};
+        List<Participant> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String contact = "+44 (0)7" + (100000000 + random.nextInt(900000000));
+            String email = "student" + i + "@live.vu.edu.au";
+            int fault = random.nextInt(40);
+            if (fault == 0) {
+                contact = "07x" + i;
+            } else if (fault == 1) {
+                email = "student" + i + ".live.vu.edu.au";
+            }
+            rows.add(new Participant(String.format("VU%07d", i), "Participant " + i,
+                departments[i % departments.length], null, contact, email, null));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,150 @@
+import javax.swing.SwingUtilities;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs blocking work off the Swing event dispatch thread
+ *
+ * Each task gets its own virtual thread and is exposed as a
+ * {@link CompletableFuture}. The executor tracks how many tasks are still
+ * running so the GUI can show an in-flight indicator, and pending tasks can
+ * be cancelled as a group.
+ *
+ * Cancelling never interrupts a worker: an interrupt closes any
+ * FileChannel the worker is using, which would break the stores and the
+ * journal for every later call. A cancelled task that has started runs to
+ * completion and its result is discarded; long tasks can stop early by
+ * polling the flag given to them by {@link #submitCancellable}.
+ */
+public class AsyncExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Futures handed to callers for the tasks that have not finished yet
+    private final Set<CompletableFuture<?>> running = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Notified on the EDT whenever the in-flight count changes
+    private final List<IntConsumer> inFlightListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Work that can stop early once its caller has cancelled it
+     */
+    @FunctionalInterface
+    public interface CancellableTask<T> {
+        T call(BooleanSupplier cancelled) throws Exception;
+    }
+
+    /**
+     * Run a task in the background
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        return start(new CompletableFuture<>(), task);
+    }
+
+    /**
+     * Run a task in the background, passing it a flag that turns true once
+     * the returned future is cancelled
+     */
+    public <T> CompletableFuture<T> submitCancellable(CancellableTask<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        return start(result, () -> task.call(result::isCancelled));
+    }
+
+    private <T> CompletableFuture<T> start(CompletableFuture<T> result, Callable<T> task) {
+        changeInFlight(1);
+
+        Future<?> future = executor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        running.add(result);
+
+        // Cancelling the returned future keeps a queued task from starting;
+        // one already running finishes and its result is dropped
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                future.cancel(false);
+            }
+            running.remove(result);
+            changeInFlight(-1);
+        });
+        return result;
+    }
+
+    /**
+     * Cancel every task that is still queued or running
+     *
+     * The callers' futures complete with a CancellationException straight
+     * away, whether or not the worker has started. Workers are not
+     * interrupted.
+     */
+    public void cancelAll() {
+        for (CompletableFuture<?> result : running) {
+            result.cancel(false);
+        }
+    }
+
+    /**
+     * Number of tasks submitted but not yet finished
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Register a listener that receives the in-flight count on the EDT
+     */
+    public void addInFlightListener(IntConsumer listener) {
+        inFlightListeners.add(listener);
+    }
+
+    /**
+     * Wrap a completion callback so that it runs on the EDT
+     */
+    public static <T> BiConsumer<T, Throwable> onEdt(BiConsumer<T, Throwable> callback) {
+        return (value, error) -> SwingUtilities.invokeLater(
+            () -> callback.accept(value, unwrap(error)));
+    }
+
+    /**
+     * Strip the CompletionException wrapper added by CompletableFuture
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private void changeInFlight(int delta) {
+        inFlight.addAndGet(delta);
+        if (!inFlightListeners.isEmpty()) {
+            // Read the count on the EDT so out-of-order updates settle on the latest value
+            SwingUtilities.invokeLater(() -> {
+                int count = inFlight.get();
+                for (IntConsumer listener : inFlightListeners) {
+                    listener.accept(count);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stop accepting work and drop queued tasks; running tasks are left
+     * to finish, for the reason given in the class comment
+     */
+    @Override
+    public void close() {
+        cancelAll();
+        executor.shutdown();
+    }
+}
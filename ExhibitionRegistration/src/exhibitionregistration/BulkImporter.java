@@ -0,0 +1,302 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import of participants from a CSV file
+ *
+ * The file is streamed one record at a time into chunks of
+ * {@code chunkSize} rows. Each chunk is checked with
+ * {@link ParticipantValidator#validateBatch}, the same rules the
+ * registration form uses, and its valid rows are inserted through one
+ * store batch, with one commit per chunk. Invalid rows and rows refused by the
+ * database are collected as rejections instead of stopping the import.
+ *
+ * The first line may be a header naming the columns (RegistrationID,
+ * ParticipantName, Department, DancingPartner, ContactNumber, EmailAddress)
+ * in any order; without one the columns are expected in that order.
+ */
+public class BulkImporter {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private static final String[] COLUMNS = {
+        "registrationid", "participantname", "department",
+        "dancingpartner", "contactnumber", "emailaddress"
+    };
+
+    private final ParticipantStore store;
+    private final int chunkSize;
+    private final Consumer<Participant> onImported;
+
+    /**
+     * Receives progress updates after each committed chunk; called on the
+     * importing thread
+     */
+    public interface ProgressListener {
+        void progress(int rowsRead, int imported, int rejected);
+    }
+
+    /**
+     * A row that was not imported
+     */
+    public static final class Rejection {
+        private final int line;
+        private final String registrationId;
+        private final String reason;
+
+        Rejection(int line, String registrationId, String reason) {
+            this.line = line;
+            this.registrationId = registrationId;
+            this.reason = reason;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public String getRegistrationId() {
+            return registrationId;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + " (" + registrationId + "): " + reason;
+        }
+    }
+
+    /**
+     * Outcome of an import
+     */
+    public static final class Result {
+        private final int rowsRead;
+        private final int imported;
+        private final List<Rejection> rejections;
+        private final long elapsedMillis;
+
+        Result(int rowsRead, int imported, List<Rejection> rejections, long elapsedMillis) {
+            this.rowsRead = rowsRead;
+            this.imported = imported;
+            this.rejections = Collections.unmodifiableList(rejections);
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getRowsRead() {
+            return rowsRead;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public List<Rejection> getRejections() {
+            return rejections;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Imported rows per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+        }
+    }
+
+    /**
+     * Create an importer committing every {@code chunkSize} rows
+     */
+    public BulkImporter(ParticipantStore store, int chunkSize) {
+        this(store, chunkSize, p -> { });
+    }
+
+    /**
+     * Create an importer that also hands every committed row to
+     * {@code onImported}
+     */
+    public BulkImporter(ParticipantStore store, int chunkSize,
+            Consumer<Participant> onImported) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        this.store = store;
+        this.chunkSize = chunkSize;
+        this.onImported = onImported;
+    }
+
+    /**
+     * Import a CSV file
+     *
+     * Stops between chunks if the calling thread is interrupted; chunks
+     * already committed stay in the database.
+     */
+    public Result importCsv(Path file, ProgressListener listener) throws IOException, SQLException {
+        return importCsv(file, listener, () -> Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Import a CSV file, stopping between chunks once {@code cancelled}
+     * returns true; chunks already committed stay in the database
+     */
+    public Result importCsv(Path file, ProgressListener listener, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        long start = System.nanoTime();
+        List<Rejection> rejections = new ArrayList<>();
+        List<Participant> chunk = new ArrayList<>(chunkSize);
+        List<Integer> chunkLines = new ArrayList<>(chunkSize);
+        int rowsRead = 0;
+        int imported = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             CsvReader csv = new CsvReader(reader)) {
+            int[] columnIndex = defaultColumns();
+            List<String> record = csv.readRecord();
+
+            if (record != null && isHeader(record)) {
+                columnIndex = columnsFromHeader(record);
+                record = csv.readRecord();
+            }
+
+            for (; record != null; record = csv.readRecord()) {
+                if (isEmpty(record)) {
+                    continue;
+                }
+                rowsRead++;
+
+                chunk.add(toParticipant(record, columnIndex));
+                chunkLines.add(csv.getRecordLine());
+                if (chunk.size() == chunkSize) {
+                    imported += flush(chunk, chunkLines, rejections);
+                    listener.progress(rowsRead, imported, rejections.size());
+                    if (cancelled.getAsBoolean()) {
+                        throw new InterruptedIOException("Import cancelled after " + imported + " rows");
+                    }
+                }
+            }
+
+            imported += flush(chunk, chunkLines, rejections);
+            listener.progress(rowsRead, imported, rejections.size());
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new Result(rowsRead, imported, rejections, elapsed);
+    }
+
+    /**
+     * Validate and insert a chunk of parsed rows, returning the number inserted
+     */
+    private int flush(List<Participant> chunk, List<Integer> lines, List<Rejection> rejections)
+            throws SQLException {
+        boolean[] failed = new boolean[chunk.size()];
+        int valid = ParticipantValidator.validateBatch(chunk, (violation, index) -> {
+            failed[index] = true;
+            rejections.add(new Rejection(lines.get(index),
+                chunk.get(index).getRegistrationId(), violation.getMessage().replace('\n', ' ')));
+        });
+
+        List<Participant> rows = chunk;
+        List<Integer> rowIndex = null;
+        if (valid < chunk.size()) {
+            rows = new ArrayList<>(valid);
+            rowIndex = new ArrayList<>(valid);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (!failed[i]) {
+                    rows.add(chunk.get(i));
+                    rowIndex.add(i);
+                }
+            }
+        }
+
+        List<Integer> toChunk = rowIndex;
+        int inserted = store.insertBatch(rows, (error, index) -> {
+            int i = toChunk == null ? index : toChunk.get(index);
+            failed[i] = true;
+            rejections.add(new Rejection(lines.get(i), chunk.get(i).getRegistrationId(), error.getMessage()));
+        });
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!failed[i]) {
+                onImported.accept(chunk.get(i));
+            }
+        }
+        chunk.clear();
+        lines.clear();
+        return inserted;
+    }
+
+    private static Participant toParticipant(List<String> record, int[] columnIndex) {
+        String[] values = new String[COLUMNS.length];
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int index = columnIndex[i];
+            values[i] = index >= 0 && index < record.size() ? record.get(index).trim() : "";
+        }
+        return new Participant(values[0], values[1], values[2],
+            values[3].isEmpty() ? null : values[3], values[4], values[5], null);
+    }
+
+    private static boolean isHeader(List<String> record) {
+        for (String value : record) {
+            if (indexOfColumn(value) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] columnsFromHeader(List<String> header) {
+        int[] columnIndex = new int[COLUMNS.length];
+        Arrays.fill(columnIndex, -1);
+        for (int i = 0; i < header.size(); i++) {
+            int column = indexOfColumn(header.get(i));
+            if (column >= 0) {
+                columnIndex[column] = i;
+            }
+        }
+        return columnIndex;
+    }
+
+    private static int[] defaultColumns() {
+        int[] columnIndex = new int[COLUMNS.length];
+        for (int i = 0; i < columnIndex.length; i++) {
+            columnIndex[i] = i;
+        }
+        return columnIndex;
+    }
+
+    private static int indexOfColumn(String name) {
+        // Spreadsheet exports often start with a byte order mark
+        String normalized = name.replace("\uFEFF", "").replace(" ", "")
+            .trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (COLUMNS[i].equals(normalized)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isEmpty(List<String> record) {
+        for (String value : record) {
+            if (!value.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
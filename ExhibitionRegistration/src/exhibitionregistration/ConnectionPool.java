@@ -0,0 +1,184 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Bounded JDBC connection pool
+ *
+ * At most {@code maxSize} physical connections are ever open. Connections are
+ * created lazily on first demand and handed back with {@link #release}; callers
+ * that find the pool exhausted wait up to the acquire timeout. Each connection
+ * keeps its own {@link StatementCache} for as long as it stays open. The time
+ * callers spend in {@link #acquire}, waiting included, is recorded in
+ * {@link #getAcquireLatency()}.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final int statementCacheSize;
+
+    // Idle connections ready for reuse
+    private final BlockingQueue<PooledConnection> idle;
+
+    // Prepared-statement cache counters across all connections
+    private final StatementCache.Stats statementStats = new StatementCache.Stats();
+
+    // Time spent in acquire, including waits for a free connection
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+
+    // One permit per connection that may still be handed out
+    private final Semaphore permits;
+
+    private volatile boolean closed = false;
+
+    /**
+     * Create a pool for the given JDBC URL
+     */
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis) {
+        this(url, maxSize, acquireTimeoutMillis, 32);
+    }
+
+    /**
+     * Create a pool with an explicit per-connection statement cache size
+     */
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrow a connection, opening a new one if none is idle
+     */
+    public PooledConnection acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            PooledConnection conn = borrow();
+            acquireLatency.record(start);
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            acquireLatency.recordError(start);
+            throw e;
+        }
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection conn = idle.poll();
+            while (conn != null && conn.isClosed()) {
+                closeQuietly(conn);
+                conn = idle.poll();
+            }
+            if (conn == null) {
+                conn = new PooledConnection(DriverManager.getConnection(url),
+                    statementCacheSize, statementStats);
+            }
+            return conn;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a borrowed connection to the pool
+     */
+    public void release(PooledConnection conn) {
+        if (conn == null) {
+            return;
+        }
+
+        try {
+            if (closed || conn.isClosed() || !conn.getConnection().getAutoCommit()) {
+                // Never hand out a connection left mid-transaction
+                closeQuietly(conn);
+            } else if (!idle.offer(conn)) {
+                closeQuietly(conn);
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Open up to {@code count} connections ahead of demand, so the first
+     * requests do not pay for connecting
+     */
+    public void warmUp(int count) throws SQLException {
+        List<PooledConnection> opened = new ArrayList<>();
+        try {
+            for (int i = 0; i < Math.min(count, maxSize); i++) {
+                opened.add(acquire());
+            }
+        } finally {
+            for (PooledConnection conn : opened) {
+                release(conn);
+            }
+        }
+    }
+
+    /**
+     * Maximum number of physical connections
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Prepared-statement cache counters for all connections of this pool
+     */
+    public StatementCache.Stats getStatementStats() {
+        return statementStats;
+    }
+
+    /**
+     * Latencies of {@link #acquire} calls on this pool
+     */
+    public LatencyHistogram getAcquireLatency() {
+        return acquireLatency;
+    }
+
+    /**
+     * Close all idle connections and refuse further acquires
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection conn;
+        while ((conn = idle.poll()) != null) {
+            closeQuietly(conn);
+        }
+    }
+
+    private static void closeQuietly(PooledConnection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
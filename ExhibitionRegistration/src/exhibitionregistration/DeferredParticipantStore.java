@@ -0,0 +1,119 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store that forwards to a store still being opened
+ *
+ * Lets the window appear before the database is open. Calls made in the
+ * meantime wait, on the background thread that made them, until the real
+ * store is ready and then go through. If opening fails, every call fails
+ * with that error.
+ */
+public class DeferredParticipantStore implements ParticipantStore {
+
+    private final CompletableFuture<? extends ParticipantStore> target;
+
+    /**
+     * Create a store forwarding to the one {@code target} completes with
+     */
+    public DeferredParticipantStore(CompletableFuture<? extends ParticipantStore> target) {
+        this.target = target;
+    }
+
+    /**
+     * True once the real store has been opened successfully
+     */
+    public boolean isReady() {
+        return target.isDone() && !target.isCompletedExceptionally();
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        return target().insert(p);
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        return target().insertBatch(rows, onRowFailure);
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        return target().upsert(p);
+    }
+
+    @Override
+    public boolean exists(String registrationId) throws SQLException {
+        return target().exists(registrationId);
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        return target().findById(registrationId);
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        return target().findPage(afterId, limit);
+    }
+
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        target().forEach(action);
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return target().count();
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        return target().update(p);
+    }
+
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        return target().delete(registrationId);
+    }
+
+    /**
+     * Close the real store, or close it as soon as it opens
+     */
+    @Override
+    public void close() throws SQLException {
+        if (target.isDone()) {
+            if (isReady()) {
+                target().close();
+            }
+            return;
+        }
+        target.thenAccept(store -> {
+            try {
+                store.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing participant store: " + e.getMessage());
+            }
+        });
+    }
+
+    private ParticipantStore target() throws SQLException {
+        try {
+            return target.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the participant store", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // A fresh exception per call; the original may be seen by many threads
+            String state = cause instanceof SQLException ? ((SQLException) cause).getSQLState() : null;
+            throw new SQLException("Participant store could not be opened: " + cause.getMessage(),
+                state, cause);
+        }
+    }
+}
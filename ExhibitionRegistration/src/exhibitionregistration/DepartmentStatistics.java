@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Live participant counts per department and by partner status
+ *
+ * Replaces running {@code SELECT Department, COUNT(*) ... GROUP BY
+ * Department} over the whole table: the counters are built by one scan at
+ * startup and then adjusted by every register, update and delete, so
+ * reading them never touches the database. {@link #getVersion()} changes
+ * with every adjustment, so a dashboard can tell in O(1) whether it needs
+ * to redraw.
+ *
+ * Writes keep happening while the startup scan runs. Until it finishes,
+ * every participant seen by the scan or by a change is kept by ID; a
+ * change overrides whatever the scan reads for that ID afterwards, since
+ * the scan may have read the row just before the change was written. The
+ * counters are computed from that map when the scan completes and the map
+ * is dropped.
+ */
+public class DepartmentStatistics implements ParticipantListener {
+
+    /**
+     * Counts at one point in time
+     */
+    public static final class Snapshot {
+        private final Map<String, Integer> byDepartment;
+        private final int partnered;
+        private final int unpartnered;
+        private final long version;
+
+        Snapshot(Map<String, Integer> byDepartment, int partnered, int unpartnered, long version) {
+            this.byDepartment = byDepartment;
+            this.partnered = partnered;
+            this.unpartnered = unpartnered;
+            this.version = version;
+        }
+
+        /**
+         * Participants per department, largest department first
+         */
+        public Map<String, Integer> getByDepartment() {
+            return byDepartment;
+        }
+
+        public int getPartnered() {
+            return partnered;
+        }
+
+        public int getUnpartnered() {
+            return unpartnered;
+        }
+
+        public int getTotal() {
+            return partnered + unpartnered;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * What the counters need to know about one participant
+     */
+    private static final class Entry {
+        final String department;
+        final boolean partnered;
+
+        Entry(Participant p) {
+            this.department = p.getDepartment() == null ? "" : p.getDepartment();
+            this.partnered = hasPartner(p);
+        }
+    }
+
+    private final Map<String, int[]> byDepartment = new HashMap<>();
+    private int partnered;
+    private int unpartnered;
+    private volatile long version;
+    private volatile boolean ready;
+
+    // Only while the startup scan runs: latest known state by ID, and the
+    // IDs changed since the scan began
+    private Map<String, Entry> rebuilding;
+    private Set<String> changedDuringRebuild;
+
+    /**
+     * Start counting from scratch; feed every stored participant to
+     * {@link #scanned} and then call {@link #finishRebuild}
+     */
+    public synchronized void beginRebuild() {
+        rebuilding = new HashMap<>();
+        changedDuringRebuild = new HashSet<>();
+        ready = false;
+    }
+
+    /**
+     * A participant read by the startup scan
+     */
+    public synchronized void scanned(Participant p) {
+        if (rebuilding != null && !changedDuringRebuild.contains(p.getRegistrationId())) {
+            rebuilding.put(p.getRegistrationId(), new Entry(p));
+        }
+    }
+
+    /**
+     * Compute the counters from the scan and switch to live updates
+     */
+    public synchronized void finishRebuild() {
+        if (rebuilding == null) {
+            return;
+        }
+        byDepartment.clear();
+        partnered = 0;
+        unpartnered = 0;
+        for (Entry entry : rebuilding.values()) {
+            adjust(entry, 1);
+        }
+        rebuilding = null;
+        changedDuringRebuild = null;
+        ready = true;
+        version++;
+    }
+
+    /**
+     * The startup scan failed; drop what it gathered so changes are no
+     * longer held back for it, and stay not ready until a new scan completes
+     */
+    public synchronized void abortRebuild() {
+        rebuilding = null;
+        changedDuringRebuild = null;
+        ready = false;
+        version++;
+    }
+
+    /**
+     * True once the startup scan has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Changes with every adjustment of the counters
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Copy of the counters; costs O(number of departments)
+     */
+    public synchronized Snapshot snapshot() {
+        List<Map.Entry<String, int[]>> entries = new ArrayList<>(byDepartment.entrySet());
+        entries.sort((a, b) -> b.getValue()[0] != a.getValue()[0]
+            ? Integer.compare(b.getValue()[0], a.getValue()[0])
+            : a.getKey().compareTo(b.getKey()));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, int[]> entry : entries) {
+            counts.put(entry.getKey(), entry.getValue()[0]);
+        }
+        return new Snapshot(Collections.unmodifiableMap(counts), partnered, unpartnered, version);
+    }
+
+    @Override
+    public synchronized void participantAdded(Participant p) {
+        if (rebuilding != null) {
+            changedDuringRebuild.add(p.getRegistrationId());
+            rebuilding.put(p.getRegistrationId(), new Entry(p));
+            return;
+        }
+        adjust(new Entry(p), 1);
+        version++;
+    }
+
+    @Override
+    public synchronized void participantUpdated(Participant before, Participant after) {
+        if (rebuilding != null) {
+            changedDuringRebuild.add(after.getRegistrationId());
+            rebuilding.put(after.getRegistrationId(), new Entry(after));
+            return;
+        }
+        adjust(new Entry(before), -1);
+        adjust(new Entry(after), 1);
+        version++;
+    }
+
+    @Override
+    public synchronized void participantRemoved(Participant p) {
+        if (rebuilding != null) {
+            changedDuringRebuild.add(p.getRegistrationId());
+            rebuilding.remove(p.getRegistrationId());
+            return;
+        }
+        adjust(new Entry(p), -1);
+        version++;
+    }
+
+    private void adjust(Entry entry, int delta) {
+        int[] count = byDepartment.computeIfAbsent(entry.department, d -> new int[1]);
+        count[0] += delta;
+        if (count[0] <= 0) {
+            byDepartment.remove(entry.department);
+        }
+        if (entry.partnered) {
+            partnered += delta;
+        } else {
+            unpartnered += delta;
+        }
+    }
+
+    private static boolean hasPartner(Participant p) {
+        String partner = p.getDancingPartner();
+        return partner != null && !partner.trim().isEmpty();
+    }
+}
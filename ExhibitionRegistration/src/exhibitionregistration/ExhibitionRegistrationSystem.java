@@ -5,8 +5,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.sql.*;
 import java.io.*;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Exhibition Registration System for SALSA Dance Festival
@@ -16,14 +15,37 @@ import java.awt.image.BufferedImage;
  */
 public class ExhibitionRegistrationSystem extends JFrame {
     
-    // Database connection components
-    private Connection conn = null;
-    private PreparedStatement pst = null;
-    private ResultSet rs = null;
+    // Database access components; the store is opened in the background
+    private volatile ConnectionPool pool = null;
+    private final CompletableFuture<ParticipantStore> storeReady = new CompletableFuture<>();
+    private final DeferredParticipantStore store = new DeferredParticipantStore(storeReady);
+    private final AsyncExecutor executor = new AsyncExecutor();
+    private ParticipantService service = null;
+    private ImageStore imageStore = null;
+    private final OperationMetrics metrics = new OperationMetrics();
     
     // Database configuration
     private static final String DB_PATH = "src/exhibitionregistration/sql_setup_script.sql";
     private static final String DB_URL = "jdbc:ucanaccess://" + DB_PATH;
+    private static final String STORE_PROPERTY = "exhibition.store";
+    private static final String JOURNAL_PROPERTY = "exhibition.journal";
+    private static final int POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final long POOL_TIMEOUT_MS = 10000;
+    private static final long INDEX_RETRY_SECONDS = 30;
+    private static final String IMAGE_STORE_PATH = "idimages";
+    private static final long LOADED_AT = System.currentTimeMillis();
+    
+    // "eager" opens the database before showing the window, as before
+    private static final String STARTUP_PROPERTY = "exhibition.startup";
+    private static final boolean FAST_STARTUP =
+        !"eager".equals(System.getProperty(STARTUP_PROPERTY, "fast"));
+    
+    // Exit once the database is warm; used for the class-data-sharing training run
+    private static final String EXIT_AFTER_STARTUP_PROPERTY = "exhibition.exitAfterStartup";
+    
+    // Seconds between latency summaries on the console; 0 turns them off
+    private static final String METRICS_LOG_PROPERTY = "exhibition.metricsLogSeconds";
+    private static final long METRICS_LOG_SECONDS = Long.getLong(METRICS_LOG_PROPERTY, 60);
     
     // GUI Components
     private JTextField txtRegID;
@@ -37,11 +59,17 @@ public class ExhibitionRegistrationSystem extends JFrame {
     
     // Image handling
     private String imagePath = "";
-    private byte[] imageData = null;
+    private String imageHash = null;                      // image in the image store
+    private CompletableFuture<String> pendingImage = null; // image still being stored
     
     // Buttons
     private JButton btnRegister, btnSearch, btnUpdate, btnDelete, btnClear, btnExit;
     
+    // Background activity indicator
+    private JLabel lblStatus;
+    private JProgressBar progressBar;
+    private JButton btnCancel;
+    
     /**
      * Constructor - Initializes the GUI and database connection
      */
@@ -52,64 +80,216 @@ public class ExhibitionRegistrationSystem extends JFrame {
         setLocationRelativeTo(null);
         setResizable(false);
         
-        initializeDatabase();
+        initializeServices();
         initializeGUI();
+        initializeDatabase();
         
         setVisible(true);
+        SwingUtilities.invokeLater(() ->
+            System.out.println("Window shown " + millisSinceLaunch() + " ms after launch"));
     }
     
     /**
-     * Initialize database connection and create table if not exists
+     * Set up the image store and the service on top of the participant
+     * store that is still to be opened, and start publishing operation
+     * latencies over JMX and to the console
      */
-    private void initializeDatabase() {
+    private void initializeServices() {
+        metrics.registerMBean();
+        metrics.startLogging(METRICS_LOG_SECONDS);
+        
         try {
-            // Load UCanAccess driver
-            Class.forName("net.ucanaccess.jdbc.UcanaccessDriver");
-            
-            // Establish connection
-            conn = DriverManager.getConnection(DB_URL);
+            imageStore = new ImageStore(java.nio.file.Paths.get(IMAGE_STORE_PATH));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this,
+                "Cannot open image store!\n" + e.getMessage(),
+                "Image Store Error",
+                JOptionPane.ERROR_MESSAGE);
+            e.printStackTrace();
+        }
+        service = new ParticipantService(store, imageStore, executor, metrics);
+    }
+    
+    /**
+     * Open the participant store on a background thread
+     *
+     * The form is usable straight away; anything the user does before the
+     * store is open waits in the background and runs once it is. With
+     * {@code -Dexhibition.startup=eager} the window is only shown after the
+     * store is open. With {@code -Dexhibition.journal=<file>} registrations
+     * are journaled and written to the store in the background.
+     */
+    private void initializeDatabase() {
+        String location = System.getProperty(STORE_PROPERTY, DB_URL);
+        
+        Thread startup = new Thread(() -> {
+            try {
+                ParticipantStore opened = openStore(location);
+                String journal = System.getProperty(JOURNAL_PROPERTY);
+                if (journal != null) {
+                    // Write-behind: registrations go to the journal first
+                    opened = new WriteBehindParticipantStore(opened, java.nio.file.Paths.get(journal),
+                        (p, error, rejectedFile) -> SwingUtilities.invokeLater(
+                            () -> showRejectedRegistration(p, error, rejectedFile)));
+                }
+                // Time every call as the form sees it
+                opened = new InstrumentedParticipantStore(opened, metrics);
+                storeReady.complete(opened);
+                System.out.println("Database connected successfully! (" + location + ") " +
+                    millisSinceLaunch() + " ms after launch");
+            } catch (SQLException | ClassNotFoundException | RuntimeException e) {
+                storeReady.completeExceptionally(e);
+                if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+                    e.printStackTrace();
+                    SwingUtilities.invokeLater(this::shutdown);
+                } else {
+                    SwingUtilities.invokeLater(() -> showStartupError(e));
+                }
+            }
+            SwingUtilities.invokeLater(() -> updateActivityIndicator(executor.getInFlightCount()));
             
+            if (store.isReady()) {
+                // Warm the remaining connections and the quick-find index
+                buildSearchIndex();
+                try {
+                    if (pool != null) {
+                        pool.warmUp(POOL_SIZE);
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Error warming connection pool: " + e.getMessage());
+                }
+            }
+        }, "store-startup");
+        startup.setDaemon(true);
+        startup.start();
+        
+        if (!FAST_STARTUP) {
+            storeReady.handle((opened, error) -> null).join();
+        }
+    }
+    
+    /**
+     * Open the store at the given location and bring its schema up to date
+     *
+     * A {@code log:<file>} location uses the embedded log store, an
+     * {@code http://} URL a {@link ParticipantServer} shared by several
+     * desks; anything else is a JDBC URL. The backend is chosen with the
+     * {@value #STORE_PROPERTY} system property, the Access database being
+     * the default.
+     */
+    private ParticipantStore openStore(String location) throws SQLException, ClassNotFoundException {
+        if (LogParticipantStore.isLocation(location)) {
+            return LogParticipantStore.open(location);
+        }
+        if (RemoteParticipantStore.isLocation(location)) {
+            RemoteParticipantStore remote = new RemoteParticipantStore(java.net.URI.create(location), imageStore);
+            remote.count();   // fail now if the server is unreachable
+            return remote;
+        }
+        
+        // Load UCanAccess driver
+        Class.forName("net.ucanaccess.jdbc.UcanaccessDriver");
+        
+        // Set up the connection pool and repository
+        pool = new ConnectionPool(location, POOL_SIZE, POOL_TIMEOUT_MS);
+        metrics.register(OperationMetrics.CONNECTION_ACQUIRE, pool.getAcquireLatency());
+        ParticipantRepository repository = new ParticipantRepository(pool);
+        try {
             // Create table if it doesn't exist
-            createTableIfNotExists();
-            
-            System.out.println("Database connected successfully!");
-            
-        } catch (ClassNotFoundException e) {
+            repository.createTableIfNotExists();
+            System.out.println("Table verified/created successfully!");
+        } catch (SQLException e) {
+            repository.close();
+            throw e;
+        }
+        
+        // Move any images still stored inline into the image store
+        if (imageStore != null) {
+            migrateImages(imageStore);
+        }
+        // Answer duplicate-ID checks from memory where possible
+        return new IdFilteredParticipantStore(repository);
+    }
+    
+    /**
+     * Report a participant store that could not be opened
+     */
+    private void showStartupError(Exception e) {
+        if (e instanceof ClassNotFoundException) {
             JOptionPane.showMessageDialog(this,
                 "UCanAccess Driver not found!\nPlease ensure UCanAccess JAR files are in the classpath.",
                 "Driver Error",
                 JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
-        } catch (SQLException e) {
+        } else {
             JOptionPane.showMessageDialog(this,
                 "Database connection failed!\n" + e.getMessage(),
                 "Connection Error",
                 JOptionPane.ERROR_MESSAGE);
-            e.printStackTrace();
         }
+        e.printStackTrace();
     }
     
     /**
-     * Create participants table if it doesn't exist
+     * Tell the clerk that a registration confirmed earlier was refused when
+     * the journal applied it, so it has to be entered again
      */
-    private void createTableIfNotExists() {
-        String createTableSQL = "CREATE TABLE IF NOT EXISTS Participants (" +
-                "RegistrationID VARCHAR(20) PRIMARY KEY, " +
-                "ParticipantName VARCHAR(100) NOT NULL, " +
-                "Department VARCHAR(100) NOT NULL, " +
-                "DancingPartner VARCHAR(100), " +
-                "ContactNumber VARCHAR(20) NOT NULL, " +
-                "EmailAddress VARCHAR(100) NOT NULL, " +
-                "UniversityIDImage LONGBINARY)";
-        
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute(createTableSQL);
-            System.out.println("Table verified/created successfully!");
-        } catch (SQLException e) {
-            System.err.println("Error creating table: " + e.getMessage());
+    private void showRejectedRegistration(Participant p, SQLException error, java.nio.file.Path rejectedFile) {
+        JOptionPane.showMessageDialog(this,
+            "Registration " + p.getRegistrationId() + " (" + p.getName() + ") was saved earlier\n" +
+            "but could not be added to the database:\n" + error.getMessage() + "\n\n" +
+            "Please register this participant again. The details are kept in\n" + rejectedFile.toAbsolutePath(),
+            "Registration Not Saved",
+            JOptionPane.WARNING_MESSAGE);
+    }
+    
+    /**
+     * Milliseconds since the JVM process started, or since class loading
+     * if the start time is unknown
+     */
+    private static long millisSinceLaunch() {
+        long start = ProcessHandle.current().info().startInstant()
+            .map(java.time.Instant::toEpochMilli)
+            .orElse(LOADED_AT);
+        return System.currentTimeMillis() - start;
+    }
+    
+    /**
+     * Move inline image blobs out of the Participants table
+     */
+    private void migrateImages(ImageStore imageStore) {
+        try {
+            int moved = new ImageMigration(pool, imageStore).run();
+            if (moved > 0) {
+                System.out.println("Moved " + moved + " images into the image store");
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Error migrating images: " + e.getMessage());
         }
     }
     
+    /**
+     * Fill the in-memory search index from the database, trying again
+     * after a while if the scan fails or is cancelled
+     */
+    private void buildSearchIndex() {
+        service.buildSearchIndex().whenComplete((count, error) -> {
+            if (error != null) {
+                System.err.println("Error building search index, retrying in " + INDEX_RETRY_SECONDS +
+                    " s: " + AsyncExecutor.unwrap(error));
+                if (!Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+                    CompletableFuture.delayedExecutor(INDEX_RETRY_SECONDS, java.util.concurrent.TimeUnit.SECONDS)
+                        .execute(this::buildSearchIndex);
+                }
+            } else {
+                System.out.println("Search index ready: " + count + " participants, " +
+                    millisSinceLaunch() + " ms after launch");
+            }
+            if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+                SwingUtilities.invokeLater(this::shutdown);
+            }
+        });
+    }
+    
     /**
      * Initialize GUI components
      */
@@ -128,12 +308,49 @@ public class ExhibitionRegistrationSystem extends JFrame {
         // Button Panel
         JPanel buttonPanel = createButtonPanel();
         
+        // Status Panel
+        JPanel statusPanel = createStatusPanel();
+        
+        JPanel southPanel = new JPanel(new BorderLayout());
+        southPanel.setBackground(new Color(245, 245, 250));
+        southPanel.add(buttonPanel, BorderLayout.CENTER);
+        southPanel.add(statusPanel, BorderLayout.SOUTH);
+        
         // Add panels to main panel
         mainPanel.add(headerPanel, BorderLayout.NORTH);
         mainPanel.add(formPanel, BorderLayout.CENTER);
-        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+        mainPanel.add(southPanel, BorderLayout.SOUTH);
         
         add(mainPanel);
+        setJMenuBar(createMenuBar());
+    }
+    
+    /**
+     * Create menu bar with the less frequent organiser tools
+     */
+    private JMenuBar createMenuBar() {
+        JMenuBar menuBar = new JMenuBar();
+        
+        JMenu toolsMenu = new JMenu("Tools");
+        
+        JMenuItem browseItem = new JMenuItem("Browse Participants...");
+        browseItem.addActionListener(e -> browseParticipants());
+        toolsMenu.add(browseItem);
+        
+        JMenuItem statisticsItem = new JMenuItem("Department Statistics...");
+        statisticsItem.addActionListener(e -> showStatistics());
+        toolsMenu.add(statisticsItem);
+        
+        JMenuItem importItem = new JMenuItem("Import Participants from CSV...");
+        importItem.addActionListener(e -> importParticipants());
+        toolsMenu.add(importItem);
+        
+        JMenuItem exportItem = new JMenuItem("Export Participants to CSV...");
+        exportItem.addActionListener(e -> exportParticipants());
+        toolsMenu.add(exportItem);
+        
+        menuBar.add(toolsMenu);
+        return menuBar;
     }
     
     /**
@@ -161,6 +378,17 @@ public class ExhibitionRegistrationSystem extends JFrame {
         
         headerPanel.add(titlePanel, BorderLayout.CENTER);
         
+        // Quick find by partial name, email, department or ID
+        JLabel lblFind = new JLabel("Find:");
+        lblFind.setFont(new Font("Arial", Font.BOLD, 12));
+        lblFind.setForeground(Color.WHITE);
+        
+        JPanel findPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 0));
+        findPanel.setBackground(new Color(0, 51, 102));
+        findPanel.add(lblFind);
+        findPanel.add(new QuickFindField(service, this::openParticipant));
+        headerPanel.add(findPanel, BorderLayout.SOUTH);
+        
         return headerPanel;
     }
     
@@ -319,6 +547,59 @@ public class ExhibitionRegistrationSystem extends JFrame {
         return buttonPanel;
     }
     
+    /**
+     * Create status panel showing background database activity
+     */
+    private JPanel createStatusPanel() {
+        JPanel statusPanel = new JPanel(new BorderLayout(10, 0));
+        statusPanel.setBackground(new Color(245, 245, 250));
+        statusPanel.setBorder(new EmptyBorder(5, 5, 0, 5));
+        
+        lblStatus = new JLabel("Opening database...");
+        lblStatus.setFont(new Font("Arial", Font.PLAIN, 12));
+        lblStatus.setForeground(new Color(70, 70, 70));
+        
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setPreferredSize(new Dimension(150, 16));
+        progressBar.setVisible(false);
+        
+        btnCancel = new JButton("Cancel");
+        btnCancel.setFont(new Font("Arial", Font.PLAIN, 12));
+        btnCancel.setFocusPainted(false);
+        btnCancel.setEnabled(false);
+        btnCancel.addActionListener(e -> executor.cancelAll());
+        
+        JPanel activityPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        activityPanel.setBackground(new Color(245, 245, 250));
+        activityPanel.add(progressBar);
+        activityPanel.add(btnCancel);
+        
+        statusPanel.add(lblStatus, BorderLayout.CENTER);
+        statusPanel.add(activityPanel, BorderLayout.EAST);
+        
+        executor.addInFlightListener(this::updateActivityIndicator);
+        
+        return statusPanel;
+    }
+    
+    /**
+     * Reflect the number of running background operations in the status bar
+     */
+    private void updateActivityIndicator(int inFlight) {
+        if (inFlight > 0) {
+            lblStatus.setText(inFlight == 1
+                ? "Working..."
+                : "Working... (" + inFlight + " operations pending)");
+        } else if (store.isReady()) {
+            lblStatus.setText("Ready");
+        } else {
+            lblStatus.setText(storeReady.isDone() ? "Database unavailable" : "Opening database...");
+        }
+        progressBar.setVisible(inFlight > 0);
+        btnCancel.setEnabled(inFlight > 0);
+    }
+    
     /**
      * Helper method to create styled labels
      */
@@ -384,114 +665,90 @@ public class ExhibitionRegistrationSystem extends JFrame {
             File selectedFile = fileChooser.getSelectedFile();
             imagePath = selectedFile.getAbsolutePath();
             
-            try {
-                // Read image file into byte array
-                FileInputStream fis = new FileInputStream(selectedFile);
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                byte[] buffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = fis.read(buffer)) != -1) {
-                    baos.write(buffer, 0, bytesRead);
+            // Stream, downsize and store the image in the background
+            lblImageDisplay.setIcon(null);
+            lblImageDisplay.setText("<html><center>Loading<br>Image...</center></html>");
+            imageHash = null;
+            CompletableFuture<String> ingest = service.ingestImage(selectedFile.toPath());
+            pendingImage = ingest;
+            
+            ingest.whenComplete(AsyncExecutor.onEdt((hash, error) -> {
+                // Ignore if another image was chosen or the form cleared meanwhile
+                if (isCancelled(error) || pendingImage != ingest) {
+                    return;
                 }
-                imageData = baos.toByteArray();
-                fis.close();
+                pendingImage = null;
                 
-                // Display image in label
-                displayImage(imageData);
+                if (error != null) {
+                    lblImageDisplay.setText("<html><center>No Image<br>Selected</center></html>");
+                    JOptionPane.showMessageDialog(this,
+                        "Error reading image file: " + error.getMessage(),
+                        "Image Error",
+                        JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
                 
-            } catch (IOException e) {
-                JOptionPane.showMessageDialog(this,
-                    "Error reading image file: " + e.getMessage(),
-                    "Image Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                imageHash = hash;
+                service.loadThumbnail(hash).whenComplete(AsyncExecutor.onEdt((icon, thumbError) -> {
+                    if (isCancelled(thumbError) || !hash.equals(imageHash)) {
+                        return;
+                    }
+                    if (thumbError != null) {
+                        JOptionPane.showMessageDialog(this,
+                            "Error displaying image: " + thumbError.getMessage(),
+                            "Display Error",
+                            JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        displayImage(icon);
+                    }
+                }));
+            }));
         }
     }
     
     /**
-     * Display image in label
+     * Display a thumbnail in the image label
      */
-    private void displayImage(byte[] imgData) {
-        try {
-            if (imgData != null && imgData.length > 0) {
-                ByteArrayInputStream bis = new ByteArrayInputStream(imgData);
-                BufferedImage image = ImageIO.read(bis);
-                
-                // Scale image to fit label
-                Image scaledImage = image.getScaledInstance(
-                    lblImageDisplay.getWidth() - 10,
-                    lblImageDisplay.getHeight() - 10,
-                    Image.SCALE_SMOOTH);
-                
-                lblImageDisplay.setIcon(new ImageIcon(scaledImage));
-                lblImageDisplay.setText("");
-            }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error displaying image: " + e.getMessage(),
-                "Display Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+    private void displayImage(ImageIcon icon) {
+        lblImageDisplay.setIcon(icon);
+        lblImageDisplay.setText("");
     }
     
     /**
      * Validate input fields
      */
     private boolean validateInput() {
-        if (txtRegID.getText().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Registration ID is required!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtRegID.requestFocus();
-            return false;
+        java.util.List<ParticipantValidator.Violation> violations =
+            ParticipantValidator.validateAll(readParticipantFromForm());
+        if (violations.isEmpty()) {
+            return true;
         }
         
-        if (txtName.getText().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Participant Name is required!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtName.requestFocus();
-            return false;
-        }
-        
-        if (cmbDepartment.getSelectedIndex() == 0) {
-            JOptionPane.showMessageDialog(this, "Please select a Department!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            cmbDepartment.requestFocus();
-            return false;
-        }
-        
-        if (txtContact.getText().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Contact Number is required!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtContact.requestFocus();
-            return false;
-        }
-        
-        // Validate contact number format
-        if (!txtContact.getText().matches("^[0-9+\\-\\s()]+$")) {
-            JOptionPane.showMessageDialog(this, 
-                "Invalid Contact Number format!\nUse numbers, +, -, (), or spaces only.", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtContact.requestFocus();
-            return false;
-        }
-        
-        if (txtEmail.getText().trim().isEmpty()) {
-            JOptionPane.showMessageDialog(this, "Email Address is required!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtEmail.requestFocus();
-            return false;
+        // Report every problem at once and focus the first field to fix
+        StringBuilder message = new StringBuilder();
+        for (ParticipantValidator.Violation violation : violations) {
+            if (message.length() > 0) {
+                message.append("\n");
+            }
+            message.append(violation.getMessage());
         }
-        
-        // Validate email format
-        if (!txtEmail.getText().matches("^[A-Za-z0-9+_.-]+@(.+)$")) {
-            JOptionPane.showMessageDialog(this, 
-                "Invalid Email Address format!", 
-                "Validation Error", JOptionPane.WARNING_MESSAGE);
-            txtEmail.requestFocus();
-            return false;
+        JOptionPane.showMessageDialog(this, message.toString(), 
+            "Validation Error", JOptionPane.WARNING_MESSAGE);
+        fieldFor(violations.get(0).getField()).requestFocus();
+        return false;
+    }
+    
+    /**
+     * Form component holding the given participant field
+     */
+    private JComponent fieldFor(ParticipantValidator.Field field) {
+        switch (field) {
+            case REGISTRATION_ID: return txtRegID;
+            case NAME: return txtName;
+            case DEPARTMENT: return cmbDepartment;
+            case CONTACT_NUMBER: return txtContact;
+            default: return txtEmail;
         }
-        
-        return true;
     }
     
     /**
@@ -502,50 +759,62 @@ public class ExhibitionRegistrationSystem extends JFrame {
             return;
         }
         
-        String sql = "INSERT INTO Participants (RegistrationID, ParticipantName, " +
-                     "Department, DancingPartner, ContactNumber, EmailAddress, " +
-                     "UniversityIDImage) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        
-        try {
-            pst = conn.prepareStatement(sql);
-            pst.setString(1, txtRegID.getText().trim());
-            pst.setString(2, txtName.getText().trim());
-            pst.setString(3, cmbDepartment.getSelectedItem().toString());
-            pst.setString(4, txtPartner.getText().trim());
-            pst.setString(5, txtContact.getText().trim());
-            pst.setString(6, txtEmail.getText().trim());
-            
-            if (imageData != null) {
-                pst.setBytes(7, imageData);
-            } else {
-                pst.setNull(7, Types.LONGVARBINARY);
+        // Keep the participant with its stored image for a replace, as
+        // pendingImage is cleared once the image has finished storing
+        CompletableFuture<Participant> participant = withPendingImage(readParticipantFromForm());
+        participant.thenCompose(service::register).whenComplete(AsyncExecutor.onEdt((result, error) -> {
+            if (isCancelled(error)) {
+                return;
             }
             
-            int result = pst.executeUpdate();
-            
-            if (result > 0) {
+            if (error instanceof SQLIntegrityConstraintViolationException) {
+                offerReplace(participant.join());
+            } else if (error != null) {
+                showDatabaseError("Error registering participant", error);
+            } else if (result > 0) {
                 JOptionPane.showMessageDialog(this,
                     "Participant registered successfully!",
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
                 clearFields();
             }
+        }));
+    }
+    
+    /**
+     * The Registration ID is taken; let the user overwrite that participant
+     * with the form's details instead of picking another ID
+     *
+     * {@code participant} already carries the hash of any browsed image.
+     */
+    private void offerReplace(Participant participant) {
+        int choice = JOptionPane.showConfirmDialog(this,
+            "Registration ID already exists!\n" +
+            "Replace the existing participant with these details?\n" +
+            "Choose No to use a different ID.",
+            "Duplicate Entry",
+            JOptionPane.YES_NO_OPTION,
+            JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.YES_OPTION) {
+            txtRegID.requestFocus();
+            return;
+        }
+        
+        service.upsert(participant).whenComplete(AsyncExecutor.onEdt((inserted, error) -> {
+            if (isCancelled(error)) {
+                return;
+            }
             
-        } catch (SQLException e) {
-            if (e.getMessage().contains("duplicate") || e.getMessage().contains("unique")) {
-                JOptionPane.showMessageDialog(this,
-                    "Registration ID already exists!\nPlease use a different ID.",
-                    "Duplicate Entry",
-                    JOptionPane.ERROR_MESSAGE);
+            if (error != null) {
+                showDatabaseError("Error replacing participant", error);
             } else {
                 JOptionPane.showMessageDialog(this,
-                    "Error registering participant:\n" + e.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
+                    inserted ? "Participant registered successfully!" : "Participant replaced successfully!",
+                    "Success",
+                    JOptionPane.INFORMATION_MESSAGE);
+                clearFields();
             }
-        } finally {
-            closeResources();
-        }
+        }));
     }
     
     /**
@@ -563,29 +832,34 @@ public class ExhibitionRegistrationSystem extends JFrame {
             return;
         }
         
-        String sql = "SELECT * FROM Participants WHERE RegistrationID = ?";
-        
-        try {
-            pst = conn.prepareStatement(sql);
-            pst.setString(1, regID);
-            rs = pst.executeQuery();
+        service.find(regID).whenComplete(AsyncExecutor.onEdt((p, error) -> {
+            if (isCancelled(error)) {
+                return;
+            }
             
-            if (rs.next()) {
-                txtName.setText(rs.getString("ParticipantName"));
-                cmbDepartment.setSelectedItem(rs.getString("Department"));
-                txtPartner.setText(rs.getString("DancingPartner"));
-                txtContact.setText(rs.getString("ContactNumber"));
-                txtEmail.setText(rs.getString("EmailAddress"));
+            if (error != null) {
+                showDatabaseError("Error searching participant", error);
+            } else if (p != null) {
+                txtName.setText(p.getName());
+                cmbDepartment.setSelectedItem(p.getDepartment());
+                txtPartner.setText(p.getDancingPartner());
+                txtContact.setText(p.getContactNumber());
+                txtEmail.setText(p.getEmailAddress());
                 
                 // Load and display image
-                byte[] imgData = rs.getBytes("UniversityIDImage");
-                if (imgData != null) {
-                    imageData = imgData;
-                    displayImage(imgData);
+                pendingImage = null;
+                imageHash = p.getImageHash();
+                lblImageDisplay.setIcon(null);
+                if (imageHash != null) {
+                    ImageIcon cached = service.cachedThumbnail(p.getRegistrationId(), imageHash);
+                    if (cached != null) {
+                        displayImage(cached);
+                    } else {
+                        lblImageDisplay.setText("<html><center>Loading<br>Image...</center></html>");
+                        loadStoredImage(p.getRegistrationId(), imageHash);
+                    }
                 } else {
-                    lblImageDisplay.setIcon(null);
                     lblImageDisplay.setText("<html><center>No Image<br>Available</center></html>");
-                    imageData = null;
                 }
                 
                 JOptionPane.showMessageDialog(this,
@@ -598,15 +872,7 @@ public class ExhibitionRegistrationSystem extends JFrame {
                     "Not Found",
                     JOptionPane.INFORMATION_MESSAGE);
             }
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error searching participant:\n" + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        } finally {
-            closeResources();
-        }
+        }));
     }
     
     /**
@@ -617,48 +883,26 @@ public class ExhibitionRegistrationSystem extends JFrame {
             return;
         }
         
-        String sql = "UPDATE Participants SET ParticipantName=?, Department=?, " +
-                     "DancingPartner=?, ContactNumber=?, EmailAddress=?, " +
-                     "UniversityIDImage=? WHERE RegistrationID=?";
-        
-        try {
-            pst = conn.prepareStatement(sql);
-            pst.setString(1, txtName.getText().trim());
-            pst.setString(2, cmbDepartment.getSelectedItem().toString());
-            pst.setString(3, txtPartner.getText().trim());
-            pst.setString(4, txtContact.getText().trim());
-            pst.setString(5, txtEmail.getText().trim());
-            
-            if (imageData != null) {
-                pst.setBytes(6, imageData);
-            } else {
-                pst.setNull(6, Types.LONGVARBINARY);
+        Participant p = readParticipantFromForm();
+        withPendingImage(p).thenCompose(service::update).whenComplete(AsyncExecutor.onEdt((result, error) -> {
+            if (isCancelled(error)) {
+                return;
             }
             
-            pst.setString(7, txtRegID.getText().trim());
-            
-            int result = pst.executeUpdate();
-            
-            if (result > 0) {
+            if (error != null) {
+                showDatabaseError("Error updating participant", error);
+            } else if (result > 0) {
                 JOptionPane.showMessageDialog(this,
                     "Participant record updated successfully!",
                     "Success",
                     JOptionPane.INFORMATION_MESSAGE);
             } else {
                 JOptionPane.showMessageDialog(this,
-                    "No participant found with Registration ID: " + txtRegID.getText(),
+                    "No participant found with Registration ID: " + p.getRegistrationId(),
                     "Update Failed",
                     JOptionPane.WARNING_MESSAGE);
             }
-            
-        } catch (SQLException e) {
-            JOptionPane.showMessageDialog(this,
-                "Error updating participant:\n" + e.getMessage(),
-                "Database Error",
-                JOptionPane.ERROR_MESSAGE);
-        } finally {
-            closeResources();
-        }
+        }));
     }
     
     /**
@@ -683,15 +927,14 @@ public class ExhibitionRegistrationSystem extends JFrame {
             JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            String sql = "DELETE FROM Participants WHERE RegistrationID = ?";
-            
-            try {
-                pst = conn.prepareStatement(sql);
-                pst.setString(1, regID);
-                
-                int result = pst.executeUpdate();
+            service.delete(regID).whenComplete(AsyncExecutor.onEdt((result, error) -> {
+                if (isCancelled(error)) {
+                    return;
+                }
                 
-                if (result > 0) {
+                if (error != null) {
+                    showDatabaseError("Error deleting participant", error);
+                } else if (result > 0) {
                     JOptionPane.showMessageDialog(this,
                         "Participant deleted successfully!",
                         "Success",
@@ -703,16 +946,194 @@ public class ExhibitionRegistrationSystem extends JFrame {
                         "Delete Failed",
                         JOptionPane.WARNING_MESSAGE);
                 }
-                
-            } catch (SQLException e) {
-                JOptionPane.showMessageDialog(this,
-                    "Error deleting participant:\n" + e.getMessage(),
-                    "Database Error",
-                    JOptionPane.ERROR_MESSAGE);
-            } finally {
-                closeResources();
+            }));
+        }
+    }
+    
+    /**
+     * The participant with its image hash filled in once a browsed image
+     * has finished storing
+     */
+    private CompletableFuture<Participant> withPendingImage(Participant p) {
+        if (pendingImage == null) {
+            return CompletableFuture.completedFuture(p);
+        }
+        return pendingImage.thenApply(p::withImageHash);
+    }
+    
+    /**
+     * Load an image from the image store and show it if the participant is
+     * still the one on screen
+     */
+    private void loadStoredImage(String regID, String hash) {
+        service.loadThumbnail(regID, hash).whenComplete(AsyncExecutor.onEdt((icon, error) -> {
+            if (isCancelled(error) || !hash.equals(imageHash)
+                    || !regID.equals(txtRegID.getText().trim())) {
+                return;
             }
+            
+            if (error != null) {
+                lblImageDisplay.setText("<html><center>Image<br>Unavailable</center></html>");
+                System.err.println("Error loading image " + hash + ": " + error.getMessage());
+            } else {
+                displayImage(icon);
+            }
+        }));
+    }
+    
+    /**
+     * Show a database error reported by a background operation
+     */
+    private void showDatabaseError(String title, Throwable error) {
+        JOptionPane.showMessageDialog(this,
+            title + ":\n" + error.getMessage(),
+            "Database Error",
+            JOptionPane.ERROR_MESSAGE);
+    }
+    
+    /**
+     * True if a background operation ended because the user cancelled it
+     */
+    private static boolean isCancelled(Throwable error) {
+        return error instanceof java.util.concurrent.CancellationException;
+    }
+    
+    /**
+     * Open the paginated list of all participants
+     */
+    private void browseParticipants() {
+        new ParticipantBrowser(this, service, this::openParticipant).setVisible(true);
+    }
+    
+    /**
+     * Open the live department statistics dashboard
+     */
+    private void showStatistics() {
+        new StatisticsDialog(this, service.getStatistics()).setVisible(true);
+    }
+    
+    /**
+     * Load a participant into the form by Registration ID
+     */
+    private void openParticipant(String regID) {
+        txtRegID.setText(regID);
+        searchParticipant();
+    }
+    
+    /**
+     * Bulk import participants from a CSV file
+     */
+    private void importParticipants() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select Participants CSV File");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
+        
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        File file = fileChooser.getSelectedFile();
+        lblStatus.setText("Importing " + file.getName() + "...");
+        
+        service.importCsv(file.toPath(), (rowsRead, imported, rejected) ->
+            SwingUtilities.invokeLater(() -> lblStatus.setText(String.format(
+                "Importing %s... %d rows read, %d imported, %d rejected",
+                file.getName(), rowsRead, imported, rejected))))
+            .whenComplete(AsyncExecutor.onEdt((result, error) -> {
+                if (isCancelled(error)) {
+                    JOptionPane.showMessageDialog(this,
+                        "Import cancelled. Rows committed before cancelling were kept.",
+                        "Import Cancelled",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else if (error != null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Error importing participants:\n" + error.getMessage(),
+                        "Import Error",
+                        JOptionPane.ERROR_MESSAGE);
+                } else {
+                    showImportResult(result);
+                }
+            }));
+    }
+    
+    /**
+     * Export all participants to a CSV file, with their ID images in a ZIP
+     * file of the same name next to it
+     */
+    private void exportParticipants() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Participants");
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV Files", "csv"));
+        fileChooser.setSelectedFile(new File("participants.csv"));
+        
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        File csvFile = fileChooser.getSelectedFile();
+        if (!csvFile.getName().toLowerCase().endsWith(".csv")) {
+            csvFile = new File(csvFile.getParentFile(), csvFile.getName() + ".csv");
+        }
+        String baseName = csvFile.getName().substring(0, csvFile.getName().length() - 4);
+        File zipFile = new File(csvFile.getParentFile(), baseName + "-images.zip");
+        if ((csvFile.exists() || zipFile.exists()) && JOptionPane.showConfirmDialog(this,
+                "Replace the existing " + csvFile.getName() + " / " + zipFile.getName() + "?",
+                "Confirm Export", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        
+        String name = csvFile.getName();
+        lblStatus.setText("Exporting to " + name + "...");
+        service.exportAll(csvFile.toPath(), zipFile.toPath(), (participants, images) ->
+            SwingUtilities.invokeLater(() -> lblStatus.setText(String.format(
+                "Exporting to %s... %d participants, %d images", name, participants, images))))
+            .whenComplete(AsyncExecutor.onEdt((result, error) -> {
+                if (isCancelled(error)) {
+                    JOptionPane.showMessageDialog(this,
+                        "Export cancelled. The files written so far are incomplete.",
+                        "Export Cancelled",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else if (error != null) {
+                    JOptionPane.showMessageDialog(this,
+                        "Error exporting participants:\n" + error.getMessage(),
+                        "Export Error",
+                        JOptionPane.ERROR_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(this,
+                        "Exported " + result + "\nto " + name + " and " + zipFile.getName(),
+                        "Export Complete",
+                        JOptionPane.INFORMATION_MESSAGE);
+                }
+            }));
+    }
+    
+    /**
+     * Summarise a finished import, listing rejected rows
+     */
+    private void showImportResult(BulkImporter.Result result) {
+        String summary = String.format(
+            "%d rows read, %d imported, %d rejected in %.1f s (%.0f rows/s)",
+            result.getRowsRead(), result.getImported(), result.getRejections().size(),
+            result.getElapsedMillis() / 1000.0, result.getRowsPerSecond());
+        
+        if (result.getRejections().isEmpty()) {
+            JOptionPane.showMessageDialog(this, summary, "Import Complete",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        StringBuilder details = new StringBuilder();
+        for (BulkImporter.Rejection rejection : result.getRejections()) {
+            details.append(rejection).append('\n');
         }
+        JTextArea txtRejected = new JTextArea(details.toString(), 15, 60);
+        txtRejected.setEditable(false);
+        
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(new JLabel(summary), BorderLayout.NORTH);
+        panel.add(new JScrollPane(txtRejected), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(this, panel, "Import Complete",
+            JOptionPane.WARNING_MESSAGE);
     }
     
     /**
@@ -728,7 +1149,8 @@ public class ExhibitionRegistrationSystem extends JFrame {
         lblImageDisplay.setIcon(null);
         lblImageDisplay.setText("<html><center>No Image<br>Selected</center></html>");
         imagePath = "";
-        imageData = null;
+        imageHash = null;
+        pendingImage = null;
         txtRegID.requestFocus();
     }
     
@@ -742,33 +1164,64 @@ public class ExhibitionRegistrationSystem extends JFrame {
             JOptionPane.YES_NO_OPTION);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            try {
-                if (conn != null) {
-                    conn.close();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-            System.exit(0);
+            shutdown();
         }
     }
     
     /**
-     * Close database resources
+     * Stop background work, close the store and exit
      */
-    private void closeResources() {
+    private void shutdown() {
+        executor.close();
+        if (pool != null) {
+            System.out.println("Statement cache: " + pool.getStatementStats());
+        }
+        metrics.stopLogging();
+        metrics.unregisterMBean();
         try {
-            if (rs != null) rs.close();
-            if (pst != null) pst.close();
+            store.close();
         } catch (SQLException e) {
-            e.printStackTrace();
+            System.err.println("Error closing participant store: " + e.getMessage());
         }
+        System.exit(0);
+    }
+    
+    /**
+     * Build a participant from the current form contents
+     */
+    private Participant readParticipantFromForm() {
+        return new Participant(
+            txtRegID.getText().trim(),
+            txtName.getText().trim(),
+            cmbDepartment.getSelectedIndex() == 0 ? "" : cmbDepartment.getSelectedItem().toString(),
+            txtPartner.getText().trim(),
+            txtContact.getText().trim(),
+            txtEmail.getText().trim(),
+            imageHash);
     }
     
     /**
      * Main method to launch the application
+     *
+     * With {@code --server [port] [bind address]} no window is shown; the
+     * store named by {@value #STORE_PROPERTY} is served to desks over HTTP
+     * instead (see {@link ParticipantServer}), on the loopback interface
+     * unless a bind address such as 0.0.0.0 is given.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : ParticipantServer.DEFAULT_PORT;
+            String host = args.length > 2 ? args[2] : java.net.InetAddress.getLoopbackAddress().getHostAddress();
+            try {
+                ParticipantServer.runHeadless(System.getProperty(STORE_PROPERTY, DB_URL),
+                    new java.net.InetSocketAddress(host, port));
+            } catch (IOException | SQLException e) {
+                System.err.println("Cannot start participant server: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
         try {
             // Set system look and feel
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,271 @@
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store that answers most duplicate-ID checks from memory
+ *
+ * Keeps a {@link RegistrationIdFilter} of every stored Registration ID in
+ * front of a database store. An ID the filter has never seen is certainly
+ * new, so {@link #exists} answers false and inserts go straight to the
+ * database. Only IDs the filter might know, which are real duplicates or
+ * about 1% false positives, are looked up. Bulk inserts drop known
+ * duplicates and IDs repeated within the batch before they reach the
+ * database, so one bad row no longer sends the whole batch down the
+ * row-by-row path.
+ *
+ * The filter is filled by the first full {@link #forEach}, which the
+ * application's search index build performs at startup; until it has run,
+ * or while it is being rebuilt after outgrowing its capacity, every check
+ * falls through to the database. Rows added by other processes are not in
+ * the filter, so the database still enforces uniqueness on every insert.
+ * Lookups, paging and counts are not affected.
+ */
+public class IdFilteredParticipantStore implements ParticipantStore {
+
+    private static final int MIN_CAPACITY = 64 * 1024;
+
+    private final ParticipantStore target;
+
+    // Null until the first full scan completes
+    private volatile RegistrationIdFilter filter;
+    // Being filled by a scan; IDs inserted meanwhile are added to both
+    private volatile RegistrationIdFilter loading;
+    private final Object loadLock = new Object();
+    private volatile boolean rebuildScheduled = false;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder answeredInMemory = new LongAdder();
+
+    /**
+     * Put an ID filter in front of {@code target}
+     */
+    public IdFilteredParticipantStore(ParticipantStore target) {
+        this.target = target;
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        if (exists(p.getRegistrationId())) {
+            throw new SQLIntegrityConstraintViolationException(
+                "Registration ID already exists: " + p.getRegistrationId());
+        }
+        int result = target.insert(p);
+        remember(p.getRegistrationId());
+        return result;
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        List<Participant> fresh = new ArrayList<>(rows.size());
+        List<Integer> freshIndex = new ArrayList<>(rows.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String id = rows.get(i).getRegistrationId();
+            if (id != null && (!seen.add(id) || exists(id))) {
+                onRowFailure.accept(new SQLIntegrityConstraintViolationException(
+                    "Registration ID already exists: " + id), i);
+                continue;
+            }
+            fresh.add(rows.get(i));
+            freshIndex.add(i);
+        }
+
+        boolean[] failed = new boolean[fresh.size()];
+        int inserted = target.insertBatch(fresh, (error, index) -> {
+            failed[index] = true;
+            onRowFailure.accept(error, freshIndex.get(index));
+        });
+        for (int i = 0; i < fresh.size(); i++) {
+            if (!failed[i]) {
+                remember(fresh.get(i).getRegistrationId());
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        boolean inserted;
+        if (exists(p.getRegistrationId())) {
+            inserted = target.upsert(p);
+        } else {
+            try {
+                inserted = target.insert(p) > 0;
+            } catch (SQLIntegrityConstraintViolationException e) {
+                // Inserted by another process since the filter was built
+                inserted = target.upsert(p);
+            }
+        }
+        remember(p.getRegistrationId());
+        return inserted;
+    }
+
+    @Override
+    public boolean exists(String registrationId) throws SQLException {
+        checks.increment();
+        RegistrationIdFilter current = filter;
+        if (current != null && !current.mightContain(registrationId)) {
+            answeredInMemory.increment();
+            return false;
+        }
+        return target.exists(registrationId);
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        return target.findById(registrationId);
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        return target.findPage(afterId, limit);
+    }
+
+    /**
+     * Pass every participant to {@code action}, filling the ID filter on
+     * the way if it has not been built yet or has outgrown its capacity
+     */
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        RegistrationIdFilter next = startLoad();
+        if (next == null) {
+            target.forEach(action);
+            return;
+        }
+
+        boolean complete = false;
+        try {
+            target.forEach(p -> {
+                next.add(p.getRegistrationId());
+                action.accept(p);
+            });
+            complete = true;
+        } finally {
+            synchronized (loadLock) {
+                if (complete) {
+                    filter = next;
+                }
+                loading = null;
+                rebuildScheduled = false;
+            }
+        }
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return target.count();
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        return target.update(p);
+    }
+
+    /**
+     * Delete a participant; its ID stays in the filter, which only costs a
+     * lookup if it is registered again
+     */
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        return target.delete(registrationId);
+    }
+
+    /**
+     * Duplicate checks made so far
+     */
+    public long getCheckCount() {
+        return checks.sum();
+    }
+
+    /**
+     * Duplicate checks answered without asking the database
+     */
+    public long getAnsweredInMemoryCount() {
+        return answeredInMemory.sum();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        System.out.println("Registration ID filter: " + getAnsweredInMemoryCount() + " of " +
+            getCheckCount() + " duplicate checks answered in memory");
+        target.close();
+    }
+
+    /**
+     * A new filter to fill from a full scan, or null if the current one is
+     * still good or another scan is already filling one
+     */
+    private RegistrationIdFilter startLoad() throws SQLException {
+        RegistrationIdFilter current = filter;
+        if (current != null && !current.isFull()) {
+            return null;
+        }
+        int capacity = Math.max(MIN_CAPACITY, 2 * target.count());
+        if (current != null) {
+            capacity = Math.max(capacity, 2 * current.getCapacity());
+        }
+        synchronized (loadLock) {
+            if (loading != null || (filter != null && !filter.isFull())) {
+                return null;
+            }
+            loading = new RegistrationIdFilter(capacity);
+            return loading;
+        }
+    }
+
+    /**
+     * Add a newly stored ID to the filter and to any filter being loaded
+     *
+     * Must be called after the row is stored: a scan starting later then
+     * sees the row, and one already running has published its filter in
+     * {@code loading} for this to find.
+     */
+    private void remember(String registrationId) {
+        // Loading first: a scan finishing in between then shows up as the
+        // new filter rather than being missed by both reads
+        RegistrationIdFilter next = loading;
+        if (next != null) {
+            next.add(registrationId);
+        }
+        RegistrationIdFilter current = filter;
+        if (current != null) {
+            current.add(registrationId);
+            if (current.isFull() && !rebuildScheduled) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    /**
+     * Rebuild a filter that has outgrown its capacity on a background
+     * thread; the old one keeps answering, with more false positives,
+     * until then
+     */
+    private void scheduleRebuild() {
+        synchronized (loadLock) {
+            if (rebuildScheduled || loading != null) {
+                return;
+            }
+            rebuildScheduled = true;
+        }
+        Thread rebuild = new Thread(() -> {
+            try {
+                forEach(p -> { });
+            } catch (SQLException e) {
+                System.err.println("Error rebuilding registration ID filter: " + e.getMessage());
+            } finally {
+                rebuildScheduled = false;
+            }
+        }, "id-filter-rebuild");
+        rebuild.setDaemon(true);
+        rebuild.start();
+    }
+}
@@ -0,0 +1,134 @@
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+/**
+ * Size-bounded intake of University ID images chosen by the user
+ *
+ * Files above {@link #MAX_INPUT_BYTES} are rejected outright. Small JPEG and
+ * PNG files within {@link #MAX_DIMENSION} are streamed into the
+ * {@link ImageStore} unchanged. Anything larger is decoded with subsampling
+ * and re-encoded as a JPEG no bigger than {@code MAX_DIMENSION} on either
+ * side. The original file is never loaded into the heap as a whole.
+ */
+public class ImageIngest {
+
+    public static final long MAX_INPUT_BYTES = 20L * 1024 * 1024;
+    public static final long MAX_STORED_AS_IS_BYTES = 512L * 1024;
+    public static final int MAX_DIMENSION = 1280;
+    public static final float JPEG_QUALITY = 0.85f;
+
+    // Refuse images whose decoded size would be unreasonable (decompression bombs)
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    private final ImageStore imageStore;
+
+    /**
+     * Create an ingest stage writing into the given store
+     */
+    public ImageIngest(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * Bring an image file into the store and return its hash
+     */
+    public String ingest(Path file) throws IOException {
+        long size = Files.size(file);
+        if (size > MAX_INPUT_BYTES) {
+            throw new IOException(String.format(
+                "Image is too large (%.1f MB). The maximum is %d MB.",
+                size / (1024.0 * 1024.0), MAX_INPUT_BYTES / (1024 * 1024)));
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ImageInputStream iis = ImageIO.createImageInputStream(Channels.newInputStream(channel))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image dimensions are too large: " + width + "x" + height);
+                }
+
+                String format = reader.getFormatName().toLowerCase();
+                boolean storableFormat = format.equals("jpeg") || format.equals("png");
+                if (storableFormat && size <= MAX_STORED_AS_IS_BYTES
+                        && width <= MAX_DIMENSION && height <= MAX_DIMENSION) {
+                    // Already small enough - keep the original bytes
+                    channel.position(0);
+                    try (InputStream in = Channels.newInputStream(channel)) {
+                        return imageStore.put(in);
+                    }
+                }
+
+                return imageStore.put(reencode(reader, width, height));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decode at reduced resolution and write a bounded-size JPEG
+     */
+    private static byte[] reencode(ImageReader reader, int width, int height) throws IOException {
+        int step = Math.max(1, Math.min(width / MAX_DIMENSION, height / MAX_DIMENSION));
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(step, step, 0, 0);
+        BufferedImage decoded = reader.read(0, param);
+
+        BufferedImage scaled = decoded;
+        if (decoded.getWidth() > MAX_DIMENSION || decoded.getHeight() > MAX_DIMENSION) {
+            scaled = Thumbnails.scaleToFit(decoded, MAX_DIMENSION, MAX_DIMENSION);
+        }
+
+        // JPEG has no alpha channel - flatten onto white
+        BufferedImage rgb = new BufferedImage(scaled.getWidth(), scaled.getHeight(),
+            BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+            g.drawImage(scaled, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(rgb, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
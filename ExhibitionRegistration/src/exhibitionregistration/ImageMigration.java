@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off migration of inline University ID images into the {@link ImageStore}
+ *
+ * Older databases keep the image bytes in the UniversityIDImage column. The
+ * migration adds the UniversityIDImageHash column, streams every stored blob
+ * into the image store, records its hash, clears the blob and finally drops
+ * the legacy column. It is safe to run on every start: once the legacy
+ * column is gone it only costs one metadata query.
+ */
+public class ImageMigration {
+
+    private static final String LEGACY_COLUMN = "UniversityIDImage";
+    private static final String HASH_COLUMN = "UniversityIDImageHash";
+
+    private final ConnectionPool pool;
+    private final ImageStore imageStore;
+
+    /**
+     * Create a migration moving blobs from the pool's database into the store
+     */
+    public ImageMigration(ConnectionPool pool, ImageStore imageStore) {
+        this.pool = pool;
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * Run the migration, returning the number of images moved
+     */
+    public int run() throws SQLException, IOException {
+        PooledConnection pooled = pool.acquire();
+        try {
+            Connection conn = pooled.getConnection();
+            List<String> columns = listColumns(conn);
+
+            if (!containsIgnoreCase(columns, HASH_COLUMN)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE Participants ADD COLUMN " + HASH_COLUMN + " VARCHAR(64)");
+                }
+            }
+            if (!containsIgnoreCase(columns, LEGACY_COLUMN)) {
+                return 0;
+            }
+
+            int moved = moveBlobs(conn);
+            dropLegacyColumn(conn);
+            return moved;
+        } finally {
+            pool.release(pooled);
+        }
+    }
+
+    /**
+     * Copy each blob into the store one row at a time so only one image is
+     * in flight at once
+     */
+    private int moveBlobs(Connection conn) throws SQLException, IOException {
+        List<String> ids = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT RegistrationID FROM Participants " +
+                 "WHERE " + LEGACY_COLUMN + " IS NOT NULL")) {
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        }
+
+        int moved = 0;
+        try (PreparedStatement select = conn.prepareStatement("SELECT " + LEGACY_COLUMN +
+                 " FROM Participants WHERE RegistrationID = ?");
+             PreparedStatement update = conn.prepareStatement("UPDATE Participants SET " +
+                 HASH_COLUMN + " = ?, " + LEGACY_COLUMN + " = NULL WHERE RegistrationID = ?")) {
+            for (String id : ids) {
+                String hash = null;
+                select.setString(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (rs.next()) {
+                        try (InputStream in = rs.getBinaryStream(1)) {
+                            if (in != null) {
+                                hash = imageStore.put(in);
+                            }
+                        }
+                    }
+                }
+                if (hash == null) {
+                    continue;
+                }
+
+                update.setString(1, hash);
+                update.setString(2, id);
+                update.executeUpdate();
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private void dropLegacyColumn(Connection conn) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE Participants DROP COLUMN " + LEGACY_COLUMN);
+        } catch (SQLException e) {
+            // The blobs are already cleared, so an empty column is harmless
+            System.err.println("Could not drop " + LEGACY_COLUMN + " column: " + e.getMessage());
+        }
+    }
+
+    private static List<String> listColumns(Connection conn) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM Participants WHERE 1 = 0")) {
+            ResultSetMetaData meta = rs.getMetaData();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnName(i));
+            }
+        }
+        return columns;
+    }
+
+    private static boolean containsIgnoreCase(List<String> values, String value) {
+        for (String v : values) {
+            if (v.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
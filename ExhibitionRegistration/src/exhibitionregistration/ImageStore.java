@@ -0,0 +1,192 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content-addressed on-disk store for University ID images
+ *
+ * Each image is saved once under the hex SHA-256 of its bytes, fanned out
+ * into sub-directories by the first two hex digits. Storing the same bytes
+ * twice returns the same hash without writing anything, so identical uploads
+ * are deduplicated automatically. Files are written to a temporary name and
+ * moved into place, so a reader never sees a partial image. A PNG thumbnail
+ * can be kept next to each image so it only has to be rendered once.
+ */
+public class ImageStore {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String THUMBNAIL_SUFFIX = ".thumb.png";
+
+    private final Path root;
+
+    /**
+     * Open (and create if needed) a store rooted at the given directory
+     */
+    public ImageStore(Path root) throws IOException {
+        this.root = root;
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Store the image bytes and return their hash
+     */
+    public String put(byte[] data) throws IOException {
+        return put(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Stream an image into the store and return its hash
+     *
+     * The stream is hashed while it is copied to a temporary file, so the
+     * image never has to be held in memory as a whole.
+     */
+    public String put(InputStream in) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, n);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+                out.force(true);
+            }
+
+            String hash = toHex(digest.digest());
+            Path target = pathFor(hash);
+            if (Files.exists(target)) {
+                // Already stored - identical upload
+                return hash;
+            }
+
+            moveIntoPlace(temp, target);
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Read a stored image into memory through a memory-mapped view
+     */
+    public byte[] read(String hash) throws IOException {
+        MappedByteBuffer mapped = map(hash);
+        byte[] data = new byte[mapped.remaining()];
+        mapped.get(data);
+        return data;
+    }
+
+    /**
+     * Memory-map a stored image read-only
+     */
+    public MappedByteBuffer map(String hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Previously saved thumbnail of the image, or null if none exists yet
+     */
+    public BufferedImage readThumbnail(String hash) throws IOException {
+        Path path = thumbnailPathFor(hash);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return ImageIO.read(path.toFile());
+    }
+
+    /**
+     * Save the rendered thumbnail of an image
+     */
+    public void putThumbnail(String hash, BufferedImage thumbnail) throws IOException {
+        Path target = thumbnailPathFor(hash);
+        Path temp = Files.createTempFile(root, "thumb-", ".tmp");
+        try {
+            ImageIO.write(thumbnail, "png", temp.toFile());
+            moveIntoPlace(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * True if an image with this hash is stored
+     */
+    public boolean contains(String hash) {
+        return isValidHash(hash) && Files.exists(pathFor(hash));
+    }
+
+    /**
+     * Location of the file holding the image with this hash
+     */
+    public Path pathFor(String hash) {
+        if (!isValidHash(hash)) {
+            throw new IllegalArgumentException("Not a SHA-256 image hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Location of the thumbnail kept for the image with this hash
+     */
+    public Path thumbnailPathFor(String hash) {
+        Path image = pathFor(hash);
+        return image.resolveSibling(hash + THUMBNAIL_SUFFIX);
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (FileAlreadyExistsException e) {
+            // Another thread stored the same content first
+        }
+    }
+
+    /**
+     * True if the string is a lower-case hex SHA-256 digest
+     */
+    public static boolean isValidHash(String hash) {
+        if (hash == null || hash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = Character.forDigit((bytes[i] >> 4) & 0xF, 16);
+            hex[i * 2 + 1] = Character.forDigit(bytes[i] & 0xF, 16);
+        }
+        return new String(hex);
+    }
+}
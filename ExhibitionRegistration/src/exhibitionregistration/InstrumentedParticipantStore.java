@@ -0,0 +1,122 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store that times every call into another store
+ *
+ * Each operation is recorded in its {@link OperationMetrics} histogram,
+ * failed calls as errors. Wrap the outermost store the form uses, so the
+ * figures are what a desk actually waits for.
+ */
+public class InstrumentedParticipantStore implements ParticipantStore {
+
+    private final ParticipantStore delegate;
+    private final LatencyHistogram register;
+    private final LatencyHistogram registerBatch;
+    private final LatencyHistogram upsert;
+    private final LatencyHistogram exists;
+    private final LatencyHistogram search;
+    private final LatencyHistogram page;
+    private final LatencyHistogram scan;
+    private final LatencyHistogram count;
+    private final LatencyHistogram update;
+    private final LatencyHistogram delete;
+
+    /**
+     * A call into the wrapped store
+     */
+    private interface StoreCall<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * Create a store recording into {@code metrics} and forwarding to
+     * {@code delegate}
+     */
+    public InstrumentedParticipantStore(ParticipantStore delegate, OperationMetrics metrics) {
+        this.delegate = delegate;
+        this.register = metrics.histogram(OperationMetrics.REGISTER);
+        this.registerBatch = metrics.histogram(OperationMetrics.REGISTER_BATCH);
+        this.upsert = metrics.histogram(OperationMetrics.UPSERT);
+        this.exists = metrics.histogram(OperationMetrics.EXISTS);
+        this.search = metrics.histogram(OperationMetrics.SEARCH);
+        this.page = metrics.histogram(OperationMetrics.PAGE);
+        this.scan = metrics.histogram(OperationMetrics.SCAN);
+        this.count = metrics.histogram(OperationMetrics.COUNT);
+        this.update = metrics.histogram(OperationMetrics.UPDATE);
+        this.delete = metrics.histogram(OperationMetrics.DELETE);
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        return timed(register, () -> delegate.insert(p));
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        return timed(registerBatch, () -> delegate.insertBatch(rows, onRowFailure));
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        return timed(upsert, () -> delegate.upsert(p));
+    }
+
+    @Override
+    public boolean exists(String registrationId) throws SQLException {
+        return timed(exists, () -> delegate.exists(registrationId));
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        return timed(search, () -> delegate.findById(registrationId));
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        return timed(page, () -> delegate.findPage(afterId, limit));
+    }
+
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        timed(scan, () -> {
+            delegate.forEach(action);
+            return null;
+        });
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return timed(count, delegate::count);
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        return timed(update, () -> delegate.update(p));
+    }
+
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        return timed(delete, () -> delegate.delete(registrationId));
+    }
+
+    @Override
+    public void close() throws SQLException {
+        delegate.close();
+    }
+
+    private static <T> T timed(LatencyHistogram histogram, StoreCall<T> call) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            histogram.record(start);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            histogram.recordError(start);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets
+ *
+ * Like an HDR histogram, every power of two is split into
+ * {@value #SUB_BUCKETS} equal buckets, so any recorded value is known to
+ * within about 3% whatever its magnitude, from nanoseconds up to hours, in
+ * a fixed array of counters. Recording is a bucket computation and two
+ * atomic increments, cheap enough to wrap every database call. Percentiles
+ * report the upper edge of the bucket they fall in.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Values from 2^MAX_EXPONENT ns (about 4.9 hours) land in the last bucket
+    private static final int MAX_EXPONENT = 44;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Record a successful operation that started at {@code startNanos}
+     * (from {@link System#nanoTime()})
+     */
+    public void record(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a failed operation that started at {@code startNanos}; its
+     * latency counts like any other
+     */
+    public void recordError(long startNanos) {
+        errors.increment();
+        record(startNanos);
+    }
+
+    /**
+     * Record an operation that took the given number of nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Consistent-enough copy of the current figures
+     *
+     * Recording carries on while the copy is taken, so counts may be off by
+     * the handful of operations that finished meanwhile.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long max = maxNanos.get();
+        return new Snapshot(total, errors.sum(), total == 0 ? 0 : totalNanos.sum() / (double) total,
+            valueAt(copy, total, 0.50, max), valueAt(copy, total, 0.90, max),
+            valueAt(copy, total, 0.99, max), valueAt(copy, total, 0.999, max), max);
+    }
+
+    /**
+     * Clear all counters
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        errors.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    /**
+     * Number of operations recorded so far
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        // Leading one plus the next SUB_BUCKET_BITS bits select the bucket
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Largest value that falls into the bucket
+     */
+    static long upperEdge(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    private static long valueAt(long[] counts, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperEdge(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Figures of one histogram at a point in time, in microseconds
+     *
+     * The getters make this an open type, so JMX clients see it as a table
+     * row without needing this class.
+     */
+    public static class Snapshot {
+
+        private final long count;
+        private final long errors;
+        private final double meanNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maxNanos;
+
+        Snapshot(long count, long errors, double meanNanos, long p50Nanos, long p90Nanos,
+                long p99Nanos, long p999Nanos, long maxNanos) {
+            this.count = count;
+            this.errors = errors;
+            this.meanNanos = meanNanos;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Fraction of operations that failed, 0 when there were none
+         */
+        public double getErrorRate() {
+            return count == 0 ? 0.0 : (double) errors / count;
+        }
+
+        public double getMeanMicros() {
+            return meanNanos / 1000.0;
+        }
+
+        public double getP50Micros() {
+            return p50Nanos / 1000.0;
+        }
+
+        public double getP90Micros() {
+            return p90Nanos / 1000.0;
+        }
+
+        public double getP99Micros() {
+            return p99Nanos / 1000.0;
+        }
+
+        public double getP999Micros() {
+            return p999Nanos / 1000.0;
+        }
+
+        public double getMaxMicros() {
+            return maxNanos / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d, errors=%d (%.2f%%), mean=%.1f us, " +
+                "p50=%.1f us, p90=%.1f us, p99=%.1f us, p99.9=%.1f us, max=%.1f us",
+                count, errors, getErrorRate() * 100, getMeanMicros(), getP50Micros(),
+                getP90Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+        }
+    }
+}
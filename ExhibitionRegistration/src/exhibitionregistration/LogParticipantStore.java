@@ -0,0 +1,737 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded participant store kept in a single append-only log file
+ *
+ * Every insert, update and delete appends one record to the end of the file
+ * and never rewrites earlier data, so writes are sequential and a crash can
+ * at worst leave a torn last record, which is detected by its checksum and
+ * cut off when the file is next opened. Only the Registration IDs and the
+ * file positions of their latest records are kept in memory; rows are read
+ * from disk when asked for. Opening the store replays the log once to
+ * rebuild that index, which is a sequential read of the file.
+ *
+ * A thread interrupted during I/O closes the file's channel for every
+ * thread. The next call reopens it, cutting off any record the interrupt
+ * cut short, so one interrupted call does not break the store.
+ *
+ * Updated and deleted rows leave dead records behind. When they make up
+ * most of the file it is rewritten with only the live records, either on
+ * open or through {@link #compact()}.
+ *
+ * File layout: an 8-byte header (magic, version) followed by records of
+ * {@code [int length][int crc32][byte op][fields]}, where each field is an
+ * int byte count (-1 for null) and UTF-8 bytes, the Registration ID first.
+ */
+public class LogParticipantStore implements ParticipantStore {
+
+    /**
+     * Location prefix selecting this backend, as in {@code log:participants.log}
+     */
+    public static final String LOCATION_PREFIX = "log:";
+
+    private static final int MAGIC = 0x50524C47;   // "PRLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+
+    // Compact once dead records take more than half of a file this big
+    private static final long COMPACT_MIN_BYTES = 1024 * 1024;
+
+    private static final String IO_ERROR_STATE = "58030";
+
+    /**
+     * Position and size of the latest record for an ID
+     */
+    private static final class Location {
+        final long offset;
+        final int length;
+
+        Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path file;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Sorted so that pages come out in ID order like the SQL backend
+    private final TreeMap<String, Location> index = new TreeMap<>();
+
+    private volatile FileChannel channel;
+    private FileLock fileLock;
+    private boolean closed;
+    private long end;
+    private long deadBytes;
+
+    /**
+     * Open the store in the given file, creating it if needed
+     */
+    public LogParticipantStore(Path file) throws SQLException {
+        this.file = file;
+        try {
+            open();
+            if (deadBytes > COMPACT_MIN_BYTES && deadBytes > end / 2) {
+                compact();
+            }
+        } catch (IOException e) {
+            closeQuietly();
+            throw ioError("Cannot open " + file, e);
+        }
+    }
+
+    /**
+     * True if the location names a log store
+     */
+    public static boolean isLocation(String location) {
+        return location.startsWith(LOCATION_PREFIX);
+    }
+
+    /**
+     * Open the store named by a {@code log:<path>} location
+     */
+    public static LogParticipantStore open(String location) throws SQLException {
+        return new LogParticipantStore(Path.of(location.substring(LOCATION_PREFIX.length())));
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        long start = end;
+        try {
+            checkInsert(p);
+            long next = write(OP_PUT, p, start);
+            channel.force(false);
+            applied(OP_PUT, p.getRegistrationId(), start, next);
+            return 1;
+        } catch (IOException e) {
+            throw writeFailed(start, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        long start = end;
+        try {
+            List<Participant> written = new ArrayList<>(rows.size());
+            Set<String> batchIds = new HashSet<>();
+            long[] offsets = new long[rows.size() + 1];
+            offsets[0] = start;
+            for (int i = 0; i < rows.size(); i++) {
+                Participant p = rows.get(i);
+                try {
+                    checkInsert(p);
+                    if (!batchIds.add(p.getRegistrationId())) {
+                        throw new SQLIntegrityConstraintViolationException(
+                            "Registration ID already exists: " + p.getRegistrationId());
+                    }
+                } catch (SQLException e) {
+                    onRowFailure.accept(e, i);
+                    continue;
+                }
+                offsets[written.size() + 1] = write(OP_PUT, p, offsets[written.size()]);
+                written.add(p);
+            }
+            // One sync for the whole batch, then the rows become visible
+            channel.force(false);
+            for (int i = 0; i < written.size(); i++) {
+                applied(OP_PUT, written.get(i).getRegistrationId(), offsets[i], offsets[i + 1]);
+            }
+            return written.size();
+        } catch (IOException e) {
+            throw writeFailed(start, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        long start = end;
+        try {
+            checkNotNull(p);
+            boolean inserted = !index.containsKey(p.getRegistrationId());
+            long next = write(OP_PUT, p, start);
+            channel.force(false);
+            applied(OP_PUT, p.getRegistrationId(), start, next);
+            return inserted;
+        } catch (IOException e) {
+            throw writeFailed(start, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answered from the in-memory index without reading the file
+     */
+    @Override
+    public boolean exists(String registrationId) {
+        lock.readLock().lock();
+        try {
+            return index.containsKey(registrationId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        ensureOpen();
+        lock.readLock().lock();
+        try {
+            Location location = index.get(registrationId);
+            return location == null ? null : read(location);
+        } catch (IOException e) {
+            throw ioError("Error reading " + file, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        ensureOpen();
+        lock.readLock().lock();
+        try {
+            List<Participant> page = new ArrayList<>(Math.min(limit, index.size()));
+            for (Location location : index.tailMap(afterId, false).values()) {
+                if (page.size() == limit) {
+                    break;
+                }
+                page.add(read(location));
+            }
+            return page;
+        } catch (IOException e) {
+            throw ioError("Error reading " + file, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        ensureOpen();
+        lock.readLock().lock();
+        try {
+            // One sequential pass, keeping only each ID's latest record
+            scan(end, (offset, length, body) -> {
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                if (buffer.get() != OP_PUT) {
+                    return;
+                }
+                Location location = index.get(readString(buffer));
+                if (location != null && location.offset == offset) {
+                    action.accept(decode(body));
+                }
+            });
+        } catch (IOException e) {
+            throw ioError("Error reading " + file, e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        long start = end;
+        try {
+            if (!index.containsKey(p.getRegistrationId())) {
+                return 0;
+            }
+            checkNotNull(p);
+            long next = write(OP_PUT, p, start);
+            channel.force(false);
+            applied(OP_PUT, p.getRegistrationId(), start, next);
+            return 1;
+        } catch (IOException e) {
+            throw writeFailed(start, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        long start = end;
+        try {
+            if (!index.containsKey(registrationId)) {
+                return 0;
+            }
+            long next = write(OP_DELETE,
+                new Participant(registrationId, null, null, null, null, null, null), start);
+            channel.force(false);
+            applied(OP_DELETE, registrationId, start, next);
+            return 1;
+        } catch (IOException e) {
+            throw writeFailed(start, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrite the file with only the live records
+     *
+     * The new file is written next to the old one and moved over it, so a
+     * crash during compaction leaves the old file intact. If the move fails
+     * the old file is reopened and the store stays usable.
+     */
+    public void compact() throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                out.write(fileHeader());
+                for (Location location : index.values()) {
+                    ByteBuffer record = ByteBuffer.allocate(location.length);
+                    readFully(location.offset, record);
+                    record.flip();
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+                out.force(true);
+            }
+
+            // The old file has to be closed before it can be replaced on Windows
+            closeQuietly();
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException deleteError) {
+                    e.addSuppressed(deleteError);
+                }
+                throw e;
+            } finally {
+                // Whichever file is in place now, compacted or original
+                open();
+            }
+        } catch (IOException e) {
+            throw ioError("Error compacting " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            closeQuietly();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Open the file and rebuild the index by replaying the log
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileLock = channel.tryLock();
+        if (fileLock == null) {
+            throw new IOException("Store is in use by another process");
+        }
+
+        index.clear();
+        deadBytes = 0;
+        if (channel.size() == 0) {
+            channel.write(fileHeader(), 0);
+            channel.force(true);
+            end = HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(0, header);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a participant log: " + file);
+        }
+
+        end = scan(channel.size(), (offset, length, body) -> {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            byte op = buffer.get();
+            String id = readString(buffer);
+            Location previous = op == OP_PUT
+                ? index.put(id, new Location(offset, length))
+                : index.remove(id);
+            if (previous != null) {
+                deadBytes += previous.length;
+            }
+            if (op == OP_DELETE) {
+                deadBytes += length;
+            }
+        });
+
+        if (end < channel.size()) {
+            System.err.println("Discarding " + (channel.size() - end) +
+                " bytes of incomplete records at the end of " + file);
+            channel.truncate(end);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Callback for each intact record found by {@link #scan}
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long offset, int length, byte[] body) throws IOException;
+    }
+
+    /**
+     * Read records sequentially up to {@code limit}, stopping at the first
+     * torn or corrupt one; returns the offset just after the last good record
+     */
+    private long scan(long limit, RecordVisitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(inputStream(HEADER_SIZE), 64 * 1024));
+        CRC32 crc = new CRC32();
+        long offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= limit) {
+            int bodyLength;
+            int checksum;
+            byte[] body;
+            try {
+                bodyLength = in.readInt();
+                checksum = in.readInt();
+                if (bodyLength <= 0 || offset + RECORD_HEADER_SIZE + bodyLength > limit) {
+                    break;
+                }
+                body = new byte[bodyLength];
+                in.readFully(body);
+            } catch (EOFException e) {
+                break;
+            }
+
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            int length = RECORD_HEADER_SIZE + bodyLength;
+            visitor.visit(offset, length, body);
+            offset += length;
+        }
+        return offset;
+    }
+
+    /**
+     * Stream over the file using positional reads, so concurrent scans do
+     * not disturb each other and no second handle on the locked file is
+     * needed
+     */
+    private InputStream inputStream(long from) {
+        return new InputStream() {
+            private long position = from;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = channel.read(ByteBuffer.wrap(b, off, len), position);
+                if (n > 0) {
+                    position += n;
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Write one record at {@code offset}, returning the offset just past it
+     *
+     * Neither the index nor {@link #end} changes until the record has been
+     * forced to disk and passed to {@link #applied}.
+     */
+    private long write(byte op, Participant p, long offset) throws IOException {
+        byte[] body = encode(op, p);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+        record.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+        while (record.hasRemaining()) {
+            offset += channel.write(record, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Make a record that is on disk visible: point the index at it and move
+     * the end of the log past it
+     */
+    private void applied(byte op, String registrationId, long offset, long next) {
+        int length = (int) (next - offset);
+        Location previous = op == OP_PUT
+            ? index.put(registrationId, new Location(offset, length))
+            : index.remove(registrationId);
+        if (previous != null) {
+            deadBytes += previous.length;
+        }
+        if (op == OP_DELETE) {
+            deadBytes += length;
+        }
+        end = next;
+    }
+
+    /**
+     * A write or its sync failed: cut off whatever part of it reached the
+     * file, so the next record is not appended after torn bytes and a
+     * reopen cannot bring the failed write back
+     */
+    private SQLException writeFailed(long start, IOException e) {
+        try {
+            if (!channel.isOpen()) {
+                // Reopening cuts the file back to the end, which is still start
+                reopenIfClosed();
+            } else if (channel.size() > start) {
+                channel.truncate(start);
+            }
+        } catch (IOException truncateError) {
+            e.addSuppressed(truncateError);
+        }
+        return ioError("Error writing " + file, e);
+    }
+
+    /**
+     * Reopen the file if an interrupt closed its channel
+     */
+    private void ensureOpen() throws SQLException {
+        FileChannel current = channel;
+        if (current != null && current.isOpen()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reopenIfClosed();
+        } catch (IOException e) {
+            throw ioError("Cannot reopen " + file, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reopen the file unless it is open or the store has been closed;
+     * the caller holds the write lock
+     *
+     * The index is kept, as only records that reached the disk are in it;
+     * anything past {@link #end} is the remains of a write that failed.
+     * The calling thread's interrupt status is cleared while the file is
+     * reopened and then restored.
+     */
+    private void reopenIfClosed() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (channel != null && channel.isOpen()) {
+            return;
+        }
+        boolean interrupted = Thread.interrupted();
+        try {
+            if (channel == null) {
+                // A failed compaction left no file open; replay it as on startup
+                try {
+                    open();
+                } catch (IOException e) {
+                    closeQuietly();
+                    throw e;
+                }
+                return;
+            }
+            FileChannel reopened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock relocked = reopened.tryLock();
+            if (relocked == null) {
+                reopened.close();
+                throw new IOException("Store is in use by another process");
+            }
+            if (reopened.size() > end) {
+                reopened.truncate(end);
+            }
+            channel = reopened;
+            fileLock = relocked;
+            System.err.println("Reopened " + file + " after an interrupted thread closed it");
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Participant read(Location location) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(location.length);
+        readFully(location.offset, record);
+        byte[] body = new byte[location.length - RECORD_HEADER_SIZE];
+        record.position(RECORD_HEADER_SIZE);
+        record.get(body);
+        return decode(body);
+    }
+
+    private void readFully(long offset, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + file);
+            }
+        }
+    }
+
+    /**
+     * Body of a record storing the participant, in this store's format
+     */
+    static byte[] encodePut(Participant p) {
+        return encode(OP_PUT, p);
+    }
+
+    private static byte[] encode(byte op, Participant p) {
+        String[] fields = op == OP_PUT
+            ? new String[] {p.getRegistrationId(), p.getName(), p.getDepartment(),
+                p.getDancingPartner(), p.getContactNumber(), p.getEmailAddress(), p.getImageHash()}
+            : new String[] {p.getRegistrationId()};
+
+        byte[][] bytes = new byte[fields.length][];
+        int size = 1;
+        for (int i = 0; i < fields.length; i++) {
+            bytes[i] = fields[i] == null ? null : fields[i].getBytes(StandardCharsets.UTF_8);
+            size += 4 + (bytes[i] == null ? 0 : bytes[i].length);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(op);
+        for (byte[] field : bytes) {
+            if (field == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(field.length).put(field);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Participant stored in a record body written by {@link #encodePut}
+     */
+    static Participant decode(byte[] body) {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        buffer.get();
+        return new Participant(readString(buffer), readString(buffer), readString(buffer),
+            readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static ByteBuffer fileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        return header;
+    }
+
+    private void checkInsert(Participant p) throws SQLException {
+        checkNotNull(p);
+        if (index.containsKey(p.getRegistrationId())) {
+            throw new SQLIntegrityConstraintViolationException(
+                "Registration ID already exists: " + p.getRegistrationId());
+        }
+    }
+
+    /**
+     * Enforce the same NOT NULL columns as the Participants table
+     */
+    private static void checkNotNull(Participant p) throws SQLException {
+        if (p.getRegistrationId() == null || p.getName() == null || p.getDepartment() == null
+                || p.getContactNumber() == null || p.getEmailAddress() == null) {
+            throw new SQLIntegrityConstraintViolationException(
+                "Missing required field for participant " + p.getRegistrationId());
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (fileLock != null) {
+                fileLock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing " + file + ": " + e.getMessage());
+        }
+        fileLock = null;
+        channel = null;
+    }
+
+    private static SQLException ioError(String message, IOException e) {
+        String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        return new SQLException(message + ": " + reason, IO_ERROR_STATE, e);
+    }
+}
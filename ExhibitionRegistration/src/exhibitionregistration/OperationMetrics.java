@@ -0,0 +1,158 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named latency histograms for the operations a desk waits on
+ *
+ * Components look up their histogram once by name and record into it on
+ * every call. The figures are published through JMX (see
+ * {@link OperationMetricsMXBean}) and can be printed to the console at a
+ * fixed interval, listing only operations that ran since the last print.
+ */
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    public static final String OBJECT_NAME = "exhibitionregistration:type=OperationMetrics";
+
+    public static final String REGISTER = "register";
+    public static final String REGISTER_BATCH = "registerBatch";
+    public static final String UPSERT = "upsert";
+    public static final String EXISTS = "exists";
+    public static final String SEARCH = "search";
+    public static final String PAGE = "page";
+    public static final String SCAN = "scan";
+    public static final String COUNT = "count";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+    public static final String CONNECTION_ACQUIRE = "connectionAcquire";
+    public static final String IMAGE_DECODE = "imageDecode";
+    public static final String IMAGE_INGEST = "imageIngest";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    // Counts at the last log line, so quiet operations are left out
+    private final Map<String, Long> lastLogged = new HashMap<>();
+
+    private ScheduledExecutorService logger;
+
+    /**
+     * Histogram for the named operation, created on first use
+     */
+    public LatencyHistogram histogram(String operation) {
+        return histograms.computeIfAbsent(operation, name -> new LatencyHistogram());
+    }
+
+    /**
+     * Publish an existing histogram under the given name, e.g. one owned
+     * by the connection pool
+     */
+    public void register(String operation, LatencyHistogram histogram) {
+        histograms.put(operation, histogram);
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getOperations() {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        histograms.forEach((name, histogram) -> result.put(name, histogram.snapshot()));
+        return result;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        getOperations().forEach((name, snapshot) -> {
+            if (snapshot.getCount() > 0) {
+                summary.append(name).append(": ").append(snapshot).append('\n');
+            }
+        });
+        return summary.toString();
+    }
+
+    @Override
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        synchronized (lastLogged) {
+            lastLogged.clear();
+        }
+    }
+
+    /**
+     * Register with the platform MBean server; false if that failed, which
+     * only costs the JMX view
+     */
+    public boolean registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            return false;
+        } catch (JMException e) {
+            System.err.println("Cannot register metrics MBean: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Remove this object from the platform MBean server, if registered
+     */
+    public void unregisterMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            // Not registered
+        }
+    }
+
+    /**
+     * Print the operations that ran every {@code periodSeconds} seconds on
+     * a daemon thread
+     */
+    public synchronized void startLogging(long periodSeconds) {
+        if (logger != null || periodSeconds <= 0) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(this::logActive, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the periodic log and print a last summary of everything
+     */
+    public synchronized void stopLogging() {
+        if (logger != null) {
+            logger.shutdownNow();
+            logger = null;
+        }
+        String summary = getSummary();
+        if (!summary.isEmpty()) {
+            System.out.print("Operation latencies since start:\n" + summary);
+        }
+    }
+
+    private void logActive() {
+        StringBuilder lines = new StringBuilder();
+        synchronized (lastLogged) {
+            getOperations().forEach((name, snapshot) -> {
+                Long previous = lastLogged.put(name, snapshot.getCount());
+                if (snapshot.getCount() > 0 && (previous == null || previous != snapshot.getCount())) {
+                    lines.append("  ").append(name).append(": ").append(snapshot).append('\n');
+                }
+            });
+        }
+        if (lines.length() > 0) {
+            System.out.print("Operation latencies since start:\n" + lines);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link OperationMetrics}
+ *
+ * Registered as {@value OperationMetrics#OBJECT_NAME}; browse it with
+ * JConsole or VisualVM while desks are busy.
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * Latency figures for every operation recorded so far, by name
+     */
+    Map<String, LatencyHistogram.Snapshot> getOperations();
+
+    /**
+     * The same figures as one line per operation
+     */
+    String getSummary();
+
+    /**
+     * Clear every histogram, e.g. before a load test
+     */
+    void reset();
+}
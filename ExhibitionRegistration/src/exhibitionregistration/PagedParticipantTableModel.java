@@ -0,0 +1,189 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table model that loads participants a page at a time as rows are shown
+ *
+ * Pages are fetched with keyset queries on RegistrationID, so the model has
+ * to know the last ID of page {@code n - 1} before it can fetch page
+ * {@code n}. Those boundary IDs are kept for every page seen (one string per
+ * page); the rows themselves live in a small LRU of pages, so memory stays
+ * constant however large the table is. When a page is displayed the next
+ * one is prefetched. All methods must be called on the EDT.
+ */
+public class PagedParticipantTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMN_NAMES = {
+        "Registration ID", "Name", "Department", "Dancing Partner", "Contact", "Email"
+    };
+    private static final String LOADING = "Loading...";
+
+    private final ParticipantService service;
+    private final int pageSize;
+    private final int maxCachedPages;
+
+    private int rowCount = 0;
+
+    // pageStartKeys.get(n) is the ID after which page n starts
+    private final List<String> pageStartKeys = new ArrayList<>();
+
+    // Access-ordered so the least recently shown page is evicted first
+    private final LinkedHashMap<Integer, List<Participant>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+
+    // Page the user is waiting for that cannot be fetched yet
+    private int wantedPage = -1;
+
+    // Bumped on refresh so that answers to older requests are ignored
+    private int generation = 0;
+
+    /**
+     * Create a model with the given page size and page cache size
+     */
+    public PagedParticipantTableModel(ParticipantService service, int pageSize, int maxCachedPages) {
+        this.service = service;
+        this.pageSize = pageSize;
+        this.maxCachedPages = maxCachedPages;
+        this.pages = new LinkedHashMap<Integer, List<Participant>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Participant>> eldest) {
+                return size() > PagedParticipantTableModel.this.maxCachedPages;
+            }
+        };
+        pageStartKeys.add("");
+    }
+
+    /**
+     * Discard all loaded pages and start again from the first one
+     */
+    public void refresh() {
+        generation++;
+        int requestGeneration = generation;
+        pages.clear();
+        loading.clear();
+        pageStartKeys.clear();
+        pageStartKeys.add("");
+        wantedPage = -1;
+
+        service.count().whenComplete(AsyncExecutor.onEdt((count, error) -> {
+            if (requestGeneration != generation || error != null) {
+                return;
+            }
+            rowCount = count;
+            fireTableDataChanged();
+        }));
+    }
+
+    /**
+     * Participant shown in the given row, or null if its page is not loaded
+     */
+    public Participant getParticipantAt(int row) {
+        List<Participant> page = pages.get(row / pageSize);
+        int offset = row % pageSize;
+        return page != null && offset < page.size() ? page.get(offset) : null;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / pageSize;
+        List<Participant> page = pages.get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            return column == 0 ? LOADING : "";
+        }
+
+        // Prefetch the next page while this one is on screen
+        if (!pages.containsKey(pageIndex + 1)) {
+            requestPage(pageIndex + 1);
+        }
+
+        int offset = row % pageSize;
+        if (offset >= page.size()) {
+            return "";
+        }
+
+        Participant p = page.get(offset);
+        switch (column) {
+            case 0: return p.getRegistrationId();
+            case 1: return p.getName();
+            case 2: return p.getDepartment();
+            case 3: return p.getDancingPartner();
+            case 4: return p.getContactNumber();
+            default: return p.getEmailAddress();
+        }
+    }
+
+    private void requestPage(int pageIndex) {
+        if ((long) pageIndex * pageSize >= rowCount || loading.contains(pageIndex)) {
+            return;
+        }
+
+        if (pageIndex >= pageStartKeys.size()) {
+            // Walk forward from the last page whose start is known
+            wantedPage = pageIndex;
+            pageIndex = pageStartKeys.size() - 1;
+            if (pages.containsKey(pageIndex) || loading.contains(pageIndex)) {
+                return;
+            }
+        }
+
+        int index = pageIndex;
+        int requestGeneration = generation;
+        loading.add(index);
+        service.findPage(pageStartKeys.get(index), pageSize)
+            .whenComplete(AsyncExecutor.onEdt((rows, error) -> {
+                if (requestGeneration != generation) {
+                    return;
+                }
+                loading.remove(index);
+                if (error == null) {
+                    pageLoaded(index, rows);
+                }
+            }));
+    }
+
+    private void pageLoaded(int pageIndex, List<Participant> rows) {
+        pages.put(pageIndex, rows);
+
+        if (rows.size() == pageSize && pageIndex == pageStartKeys.size() - 1) {
+            pageStartKeys.add(rows.get(rows.size() - 1).getRegistrationId());
+        }
+
+        int first = pageIndex * pageSize;
+        if (rows.size() < pageSize && first + rows.size() < rowCount) {
+            // Rows were deleted since the count was taken
+            rowCount = first + rows.size();
+            fireTableDataChanged();
+        } else if (!rows.isEmpty()) {
+            fireTableRowsUpdated(first, first + rows.size() - 1);
+        }
+
+        if (wantedPage >= 0) {
+            if (pages.containsKey(wantedPage)) {
+                wantedPage = -1;
+            } else {
+                requestPage(wantedPage);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * A single festival participant as stored in the Participants table
+ *
+ * Instances are immutable so they can be handed between the GUI and
+ * worker threads without copying.
+ */
+public final class Participant {
+
+    private final String registrationId;
+    private final String name;
+    private final String department;
+    private final String dancingPartner;
+    private final String contactNumber;
+    private final String emailAddress;
+    private final String imageHash;
+
+    /**
+     * Create a participant record
+     */
+    public Participant(String registrationId, String name, String department,
+            String dancingPartner, String contactNumber, String emailAddress,
+            String imageHash) {
+        this.registrationId = registrationId;
+        this.name = name;
+        this.department = department;
+        this.dancingPartner = dancingPartner;
+        this.contactNumber = contactNumber;
+        this.emailAddress = emailAddress;
+        this.imageHash = imageHash;
+    }
+
+    public String getRegistrationId() {
+        return registrationId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getDancingPartner() {
+        return dancingPartner;
+    }
+
+    public String getContactNumber() {
+        return contactNumber;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    /**
+     * SHA-256 of the University ID image in the {@link ImageStore}, or null
+     * when no image was supplied
+     */
+    public String getImageHash() {
+        return imageHash;
+    }
+
+    /**
+     * Copy of this participant pointing at a different stored image
+     */
+    public Participant withImageHash(String hash) {
+        return new Participant(registrationId, name, department, dancingPartner,
+            contactNumber, emailAddress, hash);
+    }
+}
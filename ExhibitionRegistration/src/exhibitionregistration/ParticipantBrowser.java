@@ -0,0 +1,69 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.Consumer;
+
+/**
+ * Window listing all registered participants
+ *
+ * Rows are loaded lazily by {@link PagedParticipantTableModel}, so opening
+ * the browser costs one count query and the first page, regardless of how
+ * many participants are registered. Double-clicking a row opens that
+ * participant in the registration form.
+ */
+public class ParticipantBrowser extends JDialog {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int CACHED_PAGES = 10;
+
+    private final PagedParticipantTableModel model;
+
+    /**
+     * Create the browser; {@code onOpen} receives the Registration ID of a
+     * double-clicked row
+     */
+    public ParticipantBrowser(Frame owner, ParticipantService service, Consumer<String> onOpen) {
+        super(owner, "Registered Participants", false);
+        setSize(850, 500);
+        setLocationRelativeTo(owner);
+
+        model = new PagedParticipantTableModel(service, PAGE_SIZE, CACHED_PAGES);
+
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
+        table.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && table.getSelectedRow() >= 0) {
+                    Participant p = model.getParticipantAt(table.getSelectedRow());
+                    if (p != null) {
+                        onOpen.accept(p.getRegistrationId());
+                    }
+                }
+            }
+        });
+
+        JButton btnRefresh = new JButton("Refresh");
+        btnRefresh.setFont(new Font("Arial", Font.PLAIN, 12));
+        btnRefresh.setFocusPainted(false);
+        btnRefresh.addActionListener(e -> model.refresh());
+
+        JLabel lblHint = new JLabel("Double-click a participant to open it in the form");
+        lblHint.setFont(new Font("Arial", Font.PLAIN, 12));
+        lblHint.setForeground(Color.GRAY);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.setBorder(new EmptyBorder(5, 10, 5, 10));
+        bottomPanel.add(lblHint, BorderLayout.WEST);
+        bottomPanel.add(btnRefresh, BorderLayout.EAST);
+
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(bottomPanel, BorderLayout.SOUTH);
+
+        model.refresh();
+    }
+}
@@ -0,0 +1,299 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming export of all participants to CSV, with their ID images in a ZIP
+ *
+ * Participants are read a page at a time in ID order, each page being one
+ * forward-only query fetched in a single round trip, and written out before
+ * the next page is read. No connection or store lock is held while images
+ * are copied. Each image is streamed from the {@link ImageStore} into the
+ * ZIP through a fixed buffer, never loaded whole. Memory use therefore
+ * does not depend on the number of participants or the size of their
+ * photos. Images are JPEG or PNG and already compressed, so they are
+ * written as STORED entries, without recompression; that takes a first
+ * pass over each image for its CRC, which the ZIP format needs up front.
+ *
+ * The CSV has the columns {@link BulkImporter} reads, plus the image hash
+ * and the name of the image's entry in the ZIP (the Registration ID with
+ * the image's extension), so an export can be imported again.
+ *
+ * Usage: {@code java ParticipantExporter <location> <csv file> [zip file]}
+ * with a location as for {@link StoreMigration}.
+ */
+public class ParticipantExporter {
+
+    public static final int PAGE_SIZE = 1000;
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final String[] HEADER = {
+        "RegistrationID", "ParticipantName", "Department", "DancingPartner",
+        "ContactNumber", "EmailAddress", "UniversityIDImageHash", "ImageFile"
+    };
+
+    private final ParticipantStore store;
+    private final ImageStore imageStore;
+
+    /**
+     * Receives progress updates after each page; called on the exporting
+     * thread
+     */
+    public interface ProgressListener {
+        void progress(int participants, int images);
+    }
+
+    /**
+     * Outcome of an export
+     */
+    public static final class Result {
+        private final int participants;
+        private final int images;
+        private final int missingImages;
+        private final long imageBytes;
+        private final long elapsedMillis;
+
+        Result(int participants, int images, int missingImages, long imageBytes, long elapsedMillis) {
+            this.participants = participants;
+            this.images = images;
+            this.missingImages = missingImages;
+            this.imageBytes = imageBytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getParticipants() {
+            return participants;
+        }
+
+        public int getImages() {
+            return images;
+        }
+
+        /**
+         * Participants whose image hash is not in the image store
+         */
+        public int getMissingImages() {
+            return missingImages;
+        }
+
+        public long getImageBytes() {
+            return imageBytes;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d participants, %d images (%.1f MB, %d missing) in %.1f s",
+                participants, images, imageBytes / (1024.0 * 1024.0), missingImages,
+                elapsedMillis / 1000.0);
+        }
+    }
+
+    /**
+     * Create an exporter reading from {@code store}; {@code imageStore}
+     * may be null when no images are exported
+     */
+    public ParticipantExporter(ParticipantStore store, ImageStore imageStore) {
+        this.store = store;
+        this.imageStore = imageStore;
+    }
+
+    /**
+     * Write every participant to {@code csvFile} and, unless
+     * {@code imagesZip} is null, their images to {@code imagesZip}
+     *
+     * Stops between pages if the calling thread is interrupted, leaving
+     * partial files behind.
+     */
+    public Result export(Path csvFile, Path imagesZip, ProgressListener listener)
+            throws IOException, SQLException {
+        return export(csvFile, imagesZip, listener, () -> Thread.currentThread().isInterrupted());
+    }
+
+    /**
+     * Write every participant and their images, stopping between pages
+     * once {@code cancelled} returns true, leaving partial files behind
+     */
+    public Result export(Path csvFile, Path imagesZip, ProgressListener listener,
+            BooleanSupplier cancelled) throws IOException, SQLException {
+        long start = System.nanoTime();
+        int participants = 0;
+        int images = 0;
+        int missing = 0;
+        long imageBytes = 0;
+
+        try (Writer csv = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(csvFile),
+                 StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+             ZipOutputStream zip = imagesZip == null ? null : newZip(imagesZip)) {
+            writeRecord(csv, HEADER);
+            String[] fields = new String[HEADER.length];
+
+            String lastId = "";
+            while (true) {
+                List<Participant> page = store.findPage(lastId, PAGE_SIZE);
+                for (Participant p : page) {
+                    String imageFile = "";
+                    String hash = p.getImageHash();
+                    if (zip != null && hash != null) {
+                        if (imageStore != null && imageStore.contains(hash)) {
+                            imageFile = p.getRegistrationId() + extension(imageStore.pathFor(hash));
+                            imageBytes += copyImage(zip, imageFile, imageStore.pathFor(hash));
+                            images++;
+                        } else {
+                            missing++;
+                        }
+                    }
+
+                    fields[0] = p.getRegistrationId();
+                    fields[1] = p.getName();
+                    fields[2] = p.getDepartment();
+                    fields[3] = p.getDancingPartner();
+                    fields[4] = p.getContactNumber();
+                    fields[5] = p.getEmailAddress();
+                    fields[6] = hash;
+                    fields[7] = imageFile;
+                    writeRecord(csv, fields);
+                    participants++;
+                }
+
+                listener.progress(participants, images);
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getRegistrationId();
+                if (cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Export cancelled after " + participants + " participants");
+                }
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new Result(participants, images, missing, imageBytes, elapsed);
+    }
+
+    private static ZipOutputStream newZip(Path file) throws IOException {
+        return new ZipOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file), WRITE_BUFFER_SIZE));
+    }
+
+    /**
+     * Stream one image file into a new STORED ZIP entry, returning its size
+     */
+    private static long copyImage(ZipOutputStream zip, String name, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                crc.update(buffer, 0, n);
+                size += n;
+            }
+        }
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        long copied = Files.copy(file, zip);
+        zip.closeEntry();
+        return copied;
+    }
+
+    /**
+     * File extension for a stored image, from its first bytes
+     */
+    private static String extension(Path file) throws IOException {
+        byte[] magic = new byte[4];
+        int n;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 16)) {
+            n = in.readNBytes(magic, 0, magic.length);
+        }
+        if (n >= 3 && (magic[0] & 0xFF) == 0xFF && (magic[1] & 0xFF) == 0xD8 && (magic[2] & 0xFF) == 0xFF) {
+            return ".jpg";
+        }
+        if (n >= 4 && (magic[0] & 0xFF) == 0x89 && magic[1] == 'P' && magic[2] == 'N' && magic[3] == 'G') {
+            return ".png";
+        }
+        if (n >= 3 && magic[0] == 'G' && magic[1] == 'I' && magic[2] == 'F') {
+            return ".gif";
+        }
+        return ".img";
+    }
+
+    private static void writeRecord(Writer out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(out, fields[i]);
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Write a field, quoting it only if it contains a separator, quote or
+     * line break
+     */
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: java ParticipantExporter <location> <csv file> [zip file]");
+            System.err.println("  location is a JDBC URL or log:<file>; images are read from idimages/");
+            System.exit(2);
+        }
+
+        try (ParticipantStore store = StoreMigration.open(args[0])) {
+            ImageStore imageStore = new ImageStore(Path.of("idimages"));
+            Result result = new ParticipantExporter(store, imageStore).export(Path.of(args[1]),
+                args.length > 2 ? Path.of(args[2]) : null,
+                (participants, images) -> System.out.println("Exported " + participants + " participants..."));
+            System.out.println("Exported " + result);
+        } catch (SQLException | IOException e) {
+            System.err.println("Export failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Receives participant changes after they have been written to the database
+ *
+ * Callbacks run on the background thread that performed the write, so
+ * implementations must be thread-safe and must not touch Swing components
+ * directly.
+ */
+public interface ParticipantListener {
+
+    /**
+     * A participant was registered
+     */
+    void participantAdded(Participant p);
+
+    /**
+     * A participant's details changed; {@code before} is the previous state
+     */
+    void participantUpdated(Participant before, Participant after);
+
+    /**
+     * A participant was deleted
+     */
+    void participantRemoved(Participant p);
+}
@@ -0,0 +1,388 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store backed by the Participants table over JDBC
+ *
+ * Every call borrows its own connection from the pool and uses that
+ * connection's cached statement, so the repository is safe to share between
+ * threads and each SQL string is only prepared once per connection.
+ */
+public class ParticipantRepository implements ParticipantStore {
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS Participants (" +
+            "RegistrationID VARCHAR(20) PRIMARY KEY, " +
+            "ParticipantName VARCHAR(100) NOT NULL, " +
+            "Department VARCHAR(100) NOT NULL, " +
+            "DancingPartner VARCHAR(100), " +
+            "ContactNumber VARCHAR(20) NOT NULL, " +
+            "EmailAddress VARCHAR(100) NOT NULL, " +
+            "UniversityIDImageHash VARCHAR(64))";
+
+    private static final String INSERT_SQL = "INSERT INTO Participants (RegistrationID, ParticipantName, " +
+            "Department, DancingPartner, ContactNumber, EmailAddress, " +
+            "UniversityIDImageHash) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Never SELECT * - legacy tables may still carry the image blob column
+    private static final String COLUMNS = "RegistrationID, ParticipantName, " +
+            "Department, DancingPartner, ContactNumber, EmailAddress, UniversityIDImageHash";
+
+    private static final String SELECT_BY_ID_SQL = "SELECT " + COLUMNS +
+            " FROM Participants WHERE RegistrationID = ?";
+
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM Participants";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM Participants";
+
+    private static final String UPDATE_SQL = "UPDATE Participants SET ParticipantName=?, Department=?, " +
+            "DancingPartner=?, ContactNumber=?, EmailAddress=?, " +
+            "UniversityIDImageHash=? WHERE RegistrationID=?";
+
+    private static final String DELETE_SQL = "DELETE FROM Participants WHERE RegistrationID = ?";
+
+    // Rows fetched per round trip when streaming the whole table
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    private final ConnectionPool pool;
+
+    /**
+     * Create a repository on top of the given pool; closing the repository
+     * closes the pool
+     */
+    public ParticipantRepository(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Create participants table if it doesn't exist
+     */
+    public void createTableIfNotExists() throws SQLException {
+        PooledConnection conn = pool.acquire();
+        try (Statement stmt = conn.getConnection().createStatement()) {
+            stmt.execute(CREATE_TABLE_SQL);
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Insert a new participant, returning the number of rows written
+     */
+    @Override
+    public int insert(Participant p) throws SQLException {
+        try {
+            return execute(INSERT_SQL, pst -> {
+                bindInsert(pst, p);
+                return pst.executeUpdate();
+            });
+        } catch (SQLException e) {
+            throw integrityViolation(e);
+        }
+    }
+
+    /**
+     * Insert many participants in one transaction using a JDBC batch
+     *
+     * If the batch fails (typically a duplicate ID) it is rolled back and
+     * the rows are retried one by one, so the good rows still go in and each
+     * bad row is reported to {@code onRowFailure} with its index in the list.
+     * Returns the number of rows inserted.
+     */
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        PooledConnection conn = pool.acquire();
+        Connection jdbc = conn.getConnection();
+        try {
+            jdbc.setAutoCommit(false);
+            PreparedStatement pst = conn.prepare(INSERT_SQL);
+            try {
+                for (Participant p : rows) {
+                    bindInsert(pst, p);
+                    pst.addBatch();
+                }
+                pst.executeBatch();
+                jdbc.commit();
+                return rows.size();
+            } catch (BatchUpdateException e) {
+                pst.clearBatch();
+                jdbc.rollback();
+            }
+
+            // Slow path: insert row by row to find the offending rows
+            jdbc.setAutoCommit(true);
+            int inserted = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                try {
+                    bindInsert(pst, rows.get(i));
+                    inserted += pst.executeUpdate();
+                } catch (SQLException e) {
+                    onRowFailure.accept(integrityViolation(e), i);
+                }
+            }
+            return inserted;
+        } catch (SQLException e) {
+            if (invalidatesStatement(e)) {
+                conn.evict(INSERT_SQL);
+            }
+            try {
+                if (!jdbc.getAutoCommit()) {
+                    jdbc.rollback();
+                }
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            throw e;
+        } finally {
+            try {
+                jdbc.setAutoCommit(true);
+            } catch (SQLException e) {
+                // The pool discards connections left in manual-commit mode
+            }
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Update the participant's row, inserting it if there is none
+     *
+     * Neither Access nor UCanAccess offers a MERGE or ON DUPLICATE KEY form,
+     * so this is an UPDATE followed, only when it matched nothing, by an
+     * INSERT on the same connection. If another writer inserts the ID in
+     * between, the INSERT fails and the UPDATE is repeated.
+     */
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        PooledConnection conn = pool.acquire();
+        String sql = UPDATE_SQL;
+        try {
+            PreparedStatement update = conn.prepare(UPDATE_SQL);
+            bindUpdate(update, p);
+            if (update.executeUpdate() > 0) {
+                return false;
+            }
+
+            sql = INSERT_SQL;
+            PreparedStatement insert = conn.prepare(INSERT_SQL);
+            bindInsert(insert, p);
+            try {
+                insert.executeUpdate();
+                return true;
+            } catch (SQLException e) {
+                if (!(integrityViolation(e) instanceof SQLIntegrityConstraintViolationException)) {
+                    throw e;
+                }
+            }
+
+            sql = UPDATE_SQL;
+            update.executeUpdate();
+            return false;
+        } catch (SQLException e) {
+            if (invalidatesStatement(e)) {
+                conn.evict(sql);
+            }
+            throw e;
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Look up a participant by Registration ID, or null if there is none
+     */
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        return execute(SELECT_BY_ID_SQL, pst -> {
+            pst.setString(1, registrationId);
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? readParticipant(rs) : null;
+            }
+        });
+    }
+
+    /**
+     * Up to {@code limit} participants with IDs strictly after {@code afterId},
+     * in ID order
+     *
+     * Keyset pagination: pass "" for the first page and the last ID of the
+     * previous page after that. Each page is an index seek on the primary
+     * key, however deep into the table it is.
+     */
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        String sql = "SELECT TOP " + limit + " " + COLUMNS +
+            " FROM Participants WHERE RegistrationID > ? ORDER BY RegistrationID";
+        return execute(sql, pst -> {
+            pst.setString(1, afterId);
+            pst.setFetchSize(limit);
+            List<Participant> page = new ArrayList<>(limit);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    page.add(readParticipant(rs));
+                }
+            }
+            return page;
+        });
+    }
+
+    /**
+     * Pass every participant to {@code action}, streaming the table through
+     * a forward-only cursor without holding it in memory
+     */
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        execute(SELECT_ALL_SQL, pst -> {
+            pst.setFetchSize(SCAN_FETCH_SIZE);
+            try (ResultSet rs = pst.executeQuery()) {
+                while (rs.next()) {
+                    action.accept(readParticipant(rs));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Total number of participants
+     */
+    @Override
+    public int count() throws SQLException {
+        return execute(COUNT_SQL, pst -> {
+            try (ResultSet rs = pst.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    /**
+     * Update an existing participant, returning the number of rows changed
+     */
+    @Override
+    public int update(Participant p) throws SQLException {
+        return execute(UPDATE_SQL, pst -> {
+            bindUpdate(pst, p);
+            return pst.executeUpdate();
+        });
+    }
+
+    /**
+     * Delete a participant, returning the number of rows removed
+     */
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        return execute(DELETE_SQL, pst -> {
+            pst.setString(1, registrationId);
+            return pst.executeUpdate();
+        });
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    /**
+     * Prepared-statement cache counters of the underlying pool
+     */
+    public StatementCache.Stats getStatementStats() {
+        return pool.getStatementStats();
+    }
+
+    private static Participant readParticipant(ResultSet rs) throws SQLException {
+        return new Participant(
+            rs.getString("RegistrationID"),
+            rs.getString("ParticipantName"),
+            rs.getString("Department"),
+            rs.getString("DancingPartner"),
+            rs.getString("ContactNumber"),
+            rs.getString("EmailAddress"),
+            rs.getString("UniversityIDImageHash"));
+    }
+
+    private static void bindInsert(PreparedStatement pst, Participant p) throws SQLException {
+        pst.setString(1, p.getRegistrationId());
+        pst.setString(2, p.getName());
+        pst.setString(3, p.getDepartment());
+        pst.setString(4, p.getDancingPartner());
+        pst.setString(5, p.getContactNumber());
+        pst.setString(6, p.getEmailAddress());
+        pst.setString(7, p.getImageHash());
+    }
+
+    private static void bindUpdate(PreparedStatement pst, Participant p) throws SQLException {
+        pst.setString(1, p.getName());
+        pst.setString(2, p.getDepartment());
+        pst.setString(3, p.getDancingPartner());
+        pst.setString(4, p.getContactNumber());
+        pst.setString(5, p.getEmailAddress());
+        pst.setString(6, p.getImageHash());
+        pst.setString(7, p.getRegistrationId());
+    }
+
+    /**
+     * The error as a {@link SQLIntegrityConstraintViolationException} if
+     * its SQLState says it is one (class 23)
+     *
+     * UCanAccess reports duplicate keys with a plain SQLException, while
+     * the {@link ParticipantStore} contract promises the subclass.
+     */
+    private static SQLException integrityViolation(SQLException e) {
+        String state = e.getSQLState();
+        if (e instanceof SQLIntegrityConstraintViolationException || state == null || !state.startsWith("23")) {
+            return e;
+        }
+        return new SQLIntegrityConstraintViolationException(e.getMessage(), state, e.getErrorCode(), e);
+    }
+
+    /**
+     * Whether the error may have left the statement or its connection
+     * unusable
+     *
+     * Data errors (class 22) and integrity violations such as a duplicate
+     * ID (class 23) only reject the values bound; the statement stays valid
+     * and is kept in the cache.
+     */
+    private static boolean invalidatesStatement(SQLException e) {
+        if (e instanceof SQLIntegrityConstraintViolationException || e instanceof SQLDataException) {
+            return false;
+        }
+        String state = e.getSQLState();
+        return state == null || !(state.startsWith("22") || state.startsWith("23"));
+    }
+
+    /**
+     * Run a statement on a borrowed connection using its cached statement
+     *
+     * A statement that fails for any reason other than the values bound is
+     * evicted so that the next call prepares a fresh one instead of reusing
+     * one the driver may have invalidated.
+     */
+    private <T> T execute(String sql, StatementCallback<T> callback) throws SQLException {
+        PooledConnection conn = pool.acquire();
+        try {
+            return callback.apply(conn.prepare(sql));
+        } catch (SQLException e) {
+            if (invalidatesStatement(e)) {
+                conn.evict(sql);
+            }
+            throw e;
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Work to perform with a prepared statement
+     */
+    @FunctionalInterface
+    private interface StatementCallback<T> {
+        T apply(PreparedStatement pst) throws SQLException;
+    }
+}
@@ -0,0 +1,370 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Headless participant server for several registration desks
+ *
+ * One process owns the participant store and the image store and serves
+ * them over HTTP, so desks no longer open the Access file themselves and
+ * fight over its locks. Each request runs on its own virtual thread, so a
+ * desk waiting on the database ties up no platform thread.
+ *
+ * <pre>
+ * GET    /participants?after=ID&amp;limit=N   page in ID order, one participant per line
+ * GET    /participants?count              number of participants
+ * POST   /participants                    register one participant (201, 409 if the ID is taken)
+ * POST   /participants?batch              register many; replies with the count, then
+ *                                         "index state message" per rejected row
+ * GET    /participants/ID                 one participant (404 if absent)
+ * HEAD   /participants/ID                 200 if the ID is taken, else 404
+ * PUT    /participants/ID                 update; replies with rows changed
+ * PUT    /participants/ID?upsert          insert (201) or replace (200)
+ * DELETE /participants/ID                 delete; replies with rows removed
+ * GET    /images/HASH                     stored ID image bytes
+ * HEAD   /images/HASH                     200 if the image is stored
+ * PUT    /images/HASH                     store an image; the body must hash to HASH
+ * GET    /metrics                         operation latency summary
+ * </pre>
+ *
+ * Participants use the {@link ParticipantWire} encoding. Store errors come
+ * back as 409 for duplicate IDs and 500 otherwise, with the SQLState in the
+ * {@value #SQL_STATE_HEADER} header and the message as the body.
+ * {@link RemoteParticipantStore} is the matching client.
+ */
+public class ParticipantServer implements AutoCloseable {
+
+    public static final int DEFAULT_PORT = 8470;
+    static final String SQL_STATE_HEADER = "X-SQL-State";
+
+    private static final String TEXT = "text/plain; charset=utf-8";
+    private static final int BACKLOG = 256;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 10_000;
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final long POOL_TIMEOUT_MS = 10000;
+    private static final String IMAGE_STORE_PATH = "idimages";
+    private static final String METRICS_LOG_PROPERTY = "exhibition.metricsLogSeconds";
+
+    static {
+        // Headers and body are written separately; without TCP_NODELAY the
+        // body waits for the client's delayed ACK, about 40 ms per request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ParticipantStore store;
+    private final ImageStore imageStore;
+    private final OperationMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Create a server for the given stores listening on {@code address};
+     * call {@link #start()} to accept requests
+     */
+    public ParticipantServer(ParticipantStore store, ImageStore imageStore, OperationMetrics metrics,
+            InetSocketAddress address) throws IOException {
+        this.store = store;
+        this.imageStore = imageStore;
+        this.metrics = metrics;
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/participants", this::handleParticipants);
+        server.createContext("/images", this::handleImages);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Port actually listened on, useful after binding to port 0
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop accepting requests, let running ones finish briefly and close
+     * the store
+     */
+    @Override
+    public void close() throws SQLException {
+        server.stop(1);
+        executor.close();
+        store.close();
+    }
+
+    private void handleParticipants(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String method = exchange.getRequestMethod();
+            try {
+                if (path.equals("/participants") || path.equals("/participants/")) {
+                    handleCollection(exchange, method, query);
+                } else if (path.startsWith("/participants/")) {
+                    String id = ParticipantWire.decodeValue(path.substring("/participants/".length()));
+                    handleParticipant(exchange, method, query, id);
+                } else {
+                    send(exchange, 404, "Not found");
+                }
+            } catch (SQLException e) {
+                sendError(exchange, e);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage());
+            }
+        }
+    }
+
+    private void handleCollection(HttpExchange exchange, String method, String query)
+            throws IOException, SQLException {
+        if (method.equals("GET") && hasFlag(query, "count")) {
+            send(exchange, 200, Integer.toString(store.count()));
+        } else if (method.equals("GET")) {
+            String after = parameter(query, "after", "");
+            int limit = Integer.parseInt(parameter(query, "limit", Integer.toString(DEFAULT_PAGE_SIZE)));
+            if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            sendLines(exchange, ParticipantWire.encodeAll(store.findPage(after, limit)));
+        } else if (method.equals("POST") && hasFlag(query, "batch")) {
+            List<Participant> rows = ParticipantWire.decodeAll(readBody(exchange));
+            StringBuilder failures = new StringBuilder();
+            int inserted = store.insertBatch(rows, (error, index) ->
+                failures.append(index).append(' ')
+                    .append(error.getSQLState() == null ? "-" : error.getSQLState()).append(' ')
+                    .append(ParticipantWire.encodeValue(String.valueOf(error.getMessage()))).append('\n'));
+            send(exchange, 200, inserted + "\n" + failures);
+        } else if (method.equals("POST")) {
+            store.insert(ParticipantWire.decode(readBody(exchange)));
+            send(exchange, 201, "1");
+        } else {
+            send(exchange, 405, "Method not allowed");
+        }
+    }
+
+    private void handleParticipant(HttpExchange exchange, String method, String query, String id)
+            throws IOException, SQLException {
+        switch (method) {
+            case "GET" -> {
+                Participant p = store.findById(id);
+                if (p == null) {
+                    send(exchange, 404, "No participant " + id);
+                } else {
+                    sendLines(exchange, ParticipantWire.encode(p));
+                }
+            }
+            case "HEAD" -> exchange.sendResponseHeaders(store.exists(id) ? 200 : 404, -1);
+            case "PUT" -> {
+                Participant p = ParticipantWire.decode(readBody(exchange));
+                if (!id.equals(p.getRegistrationId())) {
+                    throw new IllegalArgumentException("Registration ID does not match the path");
+                }
+                if (hasFlag(query, "upsert")) {
+                    boolean inserted = store.upsert(p);
+                    send(exchange, inserted ? 201 : 200, inserted ? "inserted" : "replaced");
+                } else {
+                    send(exchange, 200, Integer.toString(store.update(p)));
+                }
+            }
+            case "DELETE" -> send(exchange, 200, Integer.toString(store.delete(id)));
+            default -> send(exchange, 405, "Method not allowed");
+        }
+    }
+
+    private void handleImages(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String hash = exchange.getRequestURI().getPath().substring("/images".length());
+            hash = hash.startsWith("/") ? hash.substring(1) : hash;
+            if (!ImageStore.isValidHash(hash)) {
+                send(exchange, 404, "Not an image hash");
+                return;
+            }
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> {
+                    if (!imageStore.contains(hash)) {
+                        send(exchange, 404, "No image " + hash);
+                        return;
+                    }
+                    Path file = imageStore.pathFor(hash);
+                    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                    exchange.sendResponseHeaders(200, Files.size(file));
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        Files.copy(file, out);
+                    }
+                }
+                case "HEAD" -> exchange.sendResponseHeaders(imageStore.contains(hash) ? 200 : 404, -1);
+                case "PUT" -> putImage(exchange, hash);
+                default -> send(exchange, 405, "Method not allowed");
+            }
+        }
+    }
+
+    /**
+     * Stream an uploaded image into the store; the stored hash must be the
+     * one the client claimed
+     */
+    private void putImage(HttpExchange exchange, String hash) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length == null || Long.parseLong(length) > ImageIngest.MAX_INPUT_BYTES) {
+            send(exchange, 413, "Images must have a length of at most " + ImageIngest.MAX_INPUT_BYTES + " bytes");
+            return;
+        }
+        String stored;
+        try (InputStream in = exchange.getRequestBody()) {
+            stored = imageStore.put(in);
+        }
+        if (!stored.equals(hash)) {
+            // Content addressing keeps the stray copy harmless
+            send(exchange, 400, "Image content does not match " + hash);
+        } else {
+            send(exchange, 201, hash);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            send(exchange, 200, metrics.getSummary());
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, SQLException e) throws IOException {
+        String state = e.getSQLState();
+        boolean duplicate = e instanceof SQLIntegrityConstraintViolationException
+            || (state != null && state.startsWith("23"));
+        if (state != null) {
+            exchange.getResponseHeaders().set(SQL_STATE_HEADER, state);
+        }
+        send(exchange, duplicate ? 409 : 500, String.valueOf(e.getMessage()));
+    }
+
+    private static void sendLines(HttpExchange exchange, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", ParticipantWire.CONTENT_TYPE);
+        write(exchange, 200, body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", TEXT);
+        write(exchange, status, body);
+    }
+
+    private static void write(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static boolean hasFlag(String query, String name) {
+        return parameter(query, name, null) != null;
+    }
+
+    private static String parameter(String query, String name, String fallback) {
+        if (query == null) {
+            return fallback;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            if (key.equals(name)) {
+                return equals < 0 ? "" : ParticipantWire.decodeValue(pair.substring(equals + 1));
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * Open the store at {@code location} the way the desktop application
+     * does and serve it on {@code address} until the process is stopped
+     */
+    public static ParticipantServer runHeadless(String location, InetSocketAddress address)
+            throws IOException, SQLException {
+        OperationMetrics metrics = new OperationMetrics();
+        metrics.registerMBean();
+        metrics.startLogging(Long.getLong(METRICS_LOG_PROPERTY, 60));
+
+        ImageStore imageStore = new ImageStore(Paths.get(IMAGE_STORE_PATH));
+        ParticipantStore opened = openStore(location, imageStore, metrics);
+        ParticipantServer server = new ParticipantServer(
+            new InstrumentedParticipantStore(opened, metrics), imageStore, metrics, address);
+        server.start();
+        System.out.println("Serving " + location + " on http://" + address.getHostString() + ":" +
+            server.getPort() + "/");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing participant store: " + e.getMessage());
+            }
+            metrics.stopLogging();
+        }, "server-shutdown"));
+        return server;
+    }
+
+    /**
+     * Open the store, move inline images out of a JDBC database and fill
+     * the duplicate-ID filter
+     */
+    private static ParticipantStore openStore(String location, ImageStore imageStore,
+            OperationMetrics metrics) throws SQLException {
+        if (LogParticipantStore.isLocation(location)) {
+            return LogParticipantStore.open(location);
+        }
+
+        ConnectionPool pool = new ConnectionPool(location, POOL_SIZE, POOL_TIMEOUT_MS);
+        metrics.register(OperationMetrics.CONNECTION_ACQUIRE, pool.getAcquireLatency());
+        ParticipantRepository repository = new ParticipantRepository(pool);
+        try {
+            repository.createTableIfNotExists();
+        } catch (SQLException e) {
+            repository.close();
+            throw e;
+        }
+        try {
+            int moved = new ImageMigration(pool, imageStore).run();
+            if (moved > 0) {
+                System.out.println("Moved " + moved + " images into the image store");
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("Error migrating images: " + e.getMessage());
+        }
+
+        IdFilteredParticipantStore filtered = new IdFilteredParticipantStore(repository);
+        int[] count = {0};
+        filtered.forEach(p -> count[0]++);
+        System.out.println("Participant store ready: " + count[0] + " participants");
+        return filtered;
+    }
+}
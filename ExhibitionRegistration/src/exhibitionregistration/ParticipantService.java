@@ -0,0 +1,303 @@
+import javax.swing.ImageIcon;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Asynchronous facade over the participant store
+ *
+ * All database work runs on the {@link AsyncExecutor}; callers get a future
+ * back immediately and must never block the EDT waiting for it.
+ */
+public class ParticipantService {
+
+    // Thumbnails fit the 220x220 image label
+    public static final int THUMBNAIL_SIZE = 220;
+    private static final long THUMBNAIL_CACHE_BYTES = 32L * 1024 * 1024;
+
+    private final ParticipantStore store;
+    private final ImageStore imageStore;
+    private final ImageIngest imageIngest;
+    private final AsyncExecutor executor;
+    private final ThumbnailCache thumbnails = new ThumbnailCache(THUMBNAIL_CACHE_BYTES);
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final DepartmentStatistics statistics = new DepartmentStatistics();
+    private final List<ParticipantListener> listeners = new CopyOnWriteArrayList<>();
+    private final LatencyHistogram imageDecode;
+    private final LatencyHistogram imageIngestLatency;
+
+    /**
+     * Create a service that runs store calls on the given executor
+     */
+    public ParticipantService(ParticipantStore store, ImageStore imageStore,
+            AsyncExecutor executor) {
+        this(store, imageStore, executor, new OperationMetrics());
+    }
+
+    /**
+     * Create a service that records image decode and ingest times in
+     * {@code metrics}
+     */
+    public ParticipantService(ParticipantStore store, ImageStore imageStore,
+            AsyncExecutor executor, OperationMetrics metrics) {
+        this.store = store;
+        this.imageStore = imageStore;
+        this.imageIngest = new ImageIngest(imageStore);
+        this.executor = executor;
+        this.imageDecode = metrics.histogram(OperationMetrics.IMAGE_DECODE);
+        this.imageIngestLatency = metrics.histogram(OperationMetrics.IMAGE_INGEST);
+        listeners.add(searchIndex);
+        listeners.add(statistics);
+    }
+
+    /**
+     * Be told about every participant written through this service
+     */
+    public void addListener(ParticipantListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Load every participant into the search index and the department
+     * statistics in one scan
+     *
+     * If the scan fails the statistics stay not ready; call this again to
+     * retry.
+     */
+    public CompletableFuture<Integer> buildSearchIndex() {
+        return executor.submit(() -> {
+            searchIndex.beginRebuild();
+            statistics.beginRebuild();
+            boolean complete = false;
+            try {
+                store.forEach(p -> {
+                    searchIndex.scanned(p);
+                    statistics.scanned(p);
+                });
+                complete = true;
+            } finally {
+                searchIndex.finishRebuild();
+                if (complete) {
+                    statistics.finishRebuild();
+                } else {
+                    statistics.abortRebuild();
+                }
+            }
+            return searchIndex.size();
+        });
+    }
+
+    /**
+     * Participants whose name, email, department or ID contain every word of
+     * the query; answered from memory, so safe to call on the EDT
+     */
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Live participant counts by department and partner status; safe to
+     * read on the EDT
+     */
+    public DepartmentStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Insert a new participant
+     */
+    public CompletableFuture<Integer> register(Participant p) {
+        return executor.submit(() -> {
+            int result = store.insert(p);
+            fireAdded(p);
+            return result;
+        });
+    }
+
+    /**
+     * Insert a participant, or replace the one with the same Registration
+     * ID; completes with true if it was inserted
+     */
+    public CompletableFuture<Boolean> upsert(Participant p) {
+        return executor.submit(() -> {
+            // Only read the old row if the ID may be taken
+            Participant before = store.exists(p.getRegistrationId())
+                ? store.findById(p.getRegistrationId()) : null;
+            boolean inserted = store.upsert(p);
+            // Go by what the store did: the row may have been added or
+            // deleted by another desk since it was read
+            if (inserted) {
+                fireAdded(p);
+            } else {
+                // If it was added since, its details are unknown; treating
+                // p as the old state keeps it from being counted twice
+                Participant previous = before != null ? before : p;
+                for (ParticipantListener listener : listeners) {
+                    listener.participantUpdated(previous, p);
+                }
+            }
+            return inserted;
+        });
+    }
+
+    /**
+     * Import participants from a CSV file in committed chunks
+     */
+    public CompletableFuture<BulkImporter.Result> importCsv(Path file,
+            BulkImporter.ProgressListener listener) {
+        BulkImporter importer = new BulkImporter(store, BulkImporter.DEFAULT_CHUNK_SIZE,
+            this::fireAdded);
+        return executor.submitCancellable(cancelled -> importer.importCsv(file, listener, cancelled));
+    }
+
+    /**
+     * Export every participant to CSV and their ID images to a ZIP file
+     */
+    public CompletableFuture<ParticipantExporter.Result> exportAll(Path csvFile, Path imagesZip,
+            ParticipantExporter.ProgressListener listener) {
+        ParticipantExporter exporter = new ParticipantExporter(store, imageStore);
+        return executor.submitCancellable(cancelled -> exporter.export(csvFile, imagesZip, listener, cancelled));
+    }
+
+    /**
+     * Look up a participant by Registration ID; completes with null if absent
+     */
+    public CompletableFuture<Participant> find(String registrationId) {
+        return executor.submit(() -> store.findById(registrationId));
+    }
+
+    /**
+     * One page of participants in ID order, starting after the given ID
+     */
+    public CompletableFuture<List<Participant>> findPage(String afterId, int limit) {
+        return executor.submit(() -> store.findPage(afterId, limit));
+    }
+
+    /**
+     * Total number of participants
+     */
+    public CompletableFuture<Integer> count() {
+        return executor.submit(store::count);
+    }
+
+    /**
+     * Update an existing participant
+     */
+    public CompletableFuture<Integer> update(Participant p) {
+        return executor.submit(() -> {
+            Participant before = store.findById(p.getRegistrationId());
+            int result = store.update(p);
+            if (result > 0 && before != null) {
+                for (ParticipantListener listener : listeners) {
+                    listener.participantUpdated(before, p);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Delete a participant
+     */
+    public CompletableFuture<Integer> delete(String registrationId) {
+        return executor.submit(() -> {
+            Participant before = store.findById(registrationId);
+            int result = store.delete(registrationId);
+            thumbnails.remove(registrationId);
+            if (result > 0 && before != null) {
+                for (ParticipantListener listener : listeners) {
+                    listener.participantRemoved(before);
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Thumbnail already decoded for the participant, or null; safe on the EDT
+     */
+    public ImageIcon cachedThumbnail(String registrationId, String imageHash) {
+        return thumbnails.get(registrationId, imageHash);
+    }
+
+    /**
+     * Thumbnail of a participant's stored ID image
+     *
+     * Tries the in-memory cache, then the thumbnail saved in the image store,
+     * and only decodes the full image when neither exists, saving the result
+     * for next time.
+     */
+    public CompletableFuture<ImageIcon> loadThumbnail(String registrationId, String imageHash) {
+        ImageIcon cached = thumbnails.get(registrationId, imageHash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return executor.submit(() -> {
+            ImageIcon icon = new ImageIcon(storedThumbnail(imageHash));
+            thumbnails.put(registrationId, imageHash, icon);
+            return icon;
+        });
+    }
+
+    /**
+     * Thumbnail of a stored image that does not belong to a participant yet
+     */
+    public CompletableFuture<ImageIcon> loadThumbnail(String imageHash) {
+        return executor.submit(() -> new ImageIcon(storedThumbnail(imageHash)));
+    }
+
+    /**
+     * Validate, downsize if needed, and store an image file chosen by the
+     * user; completes with the image hash
+     */
+    public CompletableFuture<String> ingestImage(Path file) {
+        return executor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                String hash = imageIngest.ingest(file);
+                imageIngestLatency.record(start);
+                return hash;
+            } catch (IOException | RuntimeException e) {
+                imageIngestLatency.recordError(start);
+                throw e;
+            }
+        });
+    }
+
+    private void fireAdded(Participant p) {
+        for (ParticipantListener listener : listeners) {
+            listener.participantAdded(p);
+        }
+    }
+
+    /**
+     * Decode a thumbnail that is not in memory, recording the time taken
+     */
+    private BufferedImage storedThumbnail(String imageHash) throws IOException {
+        long start = System.nanoTime();
+        try {
+            BufferedImage thumbnail = imageStore.readThumbnail(imageHash);
+            if (thumbnail == null) {
+                thumbnail = Thumbnails.fromFile(imageStore.pathFor(imageHash),
+                    THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+                imageStore.putThumbnail(imageHash, thumbnail);
+            }
+            imageDecode.record(start);
+            return thumbnail;
+        } catch (IOException | RuntimeException e) {
+            imageDecode.recordError(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Executor used for background work
+     */
+    public AsyncExecutor getExecutor() {
+        return executor;
+    }
+}
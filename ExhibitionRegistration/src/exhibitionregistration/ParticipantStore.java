@@ -0,0 +1,89 @@
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Storage backend for participants
+ *
+ * Implementations must be safe to share between threads. Failures are
+ * reported as {@link SQLException} whatever the backend, and inserting an
+ * ID that already exists fails with
+ * {@link java.sql.SQLIntegrityConstraintViolationException}, so callers
+ * handle every backend the same way.
+ *
+ * @see ParticipantRepository
+ * @see LogParticipantStore
+ */
+public interface ParticipantStore extends AutoCloseable {
+
+    /**
+     * Insert a new participant, returning the number of rows inserted
+     */
+    int insert(Participant p) throws SQLException;
+
+    /**
+     * Insert many participants in one durable write
+     *
+     * Rows that cannot be inserted are reported to {@code onRowFailure}
+     * with their index in the list and the rest still go in. Returns the
+     * number of rows inserted.
+     */
+    int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException;
+
+    /**
+     * Insert the participant, or replace the one with the same
+     * Registration ID; true if it was inserted
+     */
+    boolean upsert(Participant p) throws SQLException;
+
+    /**
+     * Look up a participant by Registration ID, or null if there is none
+     */
+    Participant findById(String registrationId) throws SQLException;
+
+    /**
+     * True if a participant with this Registration ID is stored
+     *
+     * Meant for duplicate checks before an insert. Implementations may
+     * answer from memory and miss rows written by another process, so the
+     * insert itself still has to refuse duplicates.
+     */
+    default boolean exists(String registrationId) throws SQLException {
+        return findById(registrationId) != null;
+    }
+
+    /**
+     * Up to {@code limit} participants with IDs strictly after {@code afterId},
+     * in ID order; pass "" for the first page
+     */
+    List<Participant> findPage(String afterId, int limit) throws SQLException;
+
+    /**
+     * Pass every participant to {@code action} without loading them all
+     * into memory
+     */
+    void forEach(Consumer<Participant> action) throws SQLException;
+
+    /**
+     * Total number of participants
+     */
+    int count() throws SQLException;
+
+    /**
+     * Update an existing participant, returning the number of rows changed
+     */
+    int update(Participant p) throws SQLException;
+
+    /**
+     * Delete a participant, returning the number of rows removed
+     */
+    int delete(String registrationId) throws SQLException;
+
+    /**
+     * Release the files or connections held by the store
+     */
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Validation rules for participant records
+ *
+ * Shared by the registration form and the bulk CSV import so both accept
+ * exactly the same data. The contact number and email checks are
+ * hand-written scanners that accept exactly what {@link #CONTACT_PATTERN}
+ * and {@link #EMAIL_PATTERN} match, without running a regex engine.
+ * Violations are shared constants, so checking a row allocates nothing.
+ */
+public final class ParticipantValidator {
+
+    /**
+     * Contact numbers: digits, +, -, parentheses and whitespace
+     */
+    public static final Pattern CONTACT_PATTERN = Pattern.compile("^[0-9+\\-\\s()]+$");
+
+    /**
+     * Email addresses: a simple local part, '@', and a non-empty domain
+     */
+    public static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@(.+)$");
+
+    /**
+     * Participant fields that can fail validation
+     */
+    public enum Field {
+        REGISTRATION_ID, NAME, DEPARTMENT, CONTACT_NUMBER, EMAIL_ADDRESS
+    }
+
+    /**
+     * A failed rule: which field and a message suitable for the user
+     */
+    public static final class Violation {
+        private final Field field;
+        private final String message;
+
+        Violation(Field field, String message) {
+            this.field = field;
+            this.message = message;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return field + ": " + message.replace('\n', ' ');
+        }
+    }
+
+    public static final Violation MISSING_REGISTRATION_ID =
+        new Violation(Field.REGISTRATION_ID, "Registration ID is required!");
+    public static final Violation MISSING_NAME =
+        new Violation(Field.NAME, "Participant Name is required!");
+    public static final Violation MISSING_DEPARTMENT =
+        new Violation(Field.DEPARTMENT, "Please select a Department!");
+    public static final Violation MISSING_CONTACT_NUMBER =
+        new Violation(Field.CONTACT_NUMBER, "Contact Number is required!");
+    public static final Violation INVALID_CONTACT_NUMBER =
+        new Violation(Field.CONTACT_NUMBER,
+            "Invalid Contact Number format!\nUse numbers, +, -, (), or spaces only.");
+    public static final Violation MISSING_EMAIL_ADDRESS =
+        new Violation(Field.EMAIL_ADDRESS, "Email Address is required!");
+    public static final Violation INVALID_EMAIL_ADDRESS =
+        new Violation(Field.EMAIL_ADDRESS, "Invalid Email Address format!");
+
+    private ParticipantValidator() {
+    }
+
+    /**
+     * Check a participant, returning the first violation or null if valid
+     */
+    public static Violation validate(Participant p) {
+        if (isBlank(p.getRegistrationId())) {
+            return MISSING_REGISTRATION_ID;
+        }
+        if (isBlank(p.getName())) {
+            return MISSING_NAME;
+        }
+        if (isBlank(p.getDepartment())) {
+            return MISSING_DEPARTMENT;
+        }
+        Violation contact = checkContactNumber(p.getContactNumber());
+        if (contact != null) {
+            return contact;
+        }
+        return checkEmailAddress(p.getEmailAddress());
+    }
+
+    /**
+     * Every rule a participant breaks, in form order; empty if valid
+     */
+    public static List<Violation> validateAll(Participant p) {
+        List<Violation> violations = new ArrayList<>(0);
+        if (isBlank(p.getRegistrationId())) {
+            violations.add(MISSING_REGISTRATION_ID);
+        }
+        if (isBlank(p.getName())) {
+            violations.add(MISSING_NAME);
+        }
+        if (isBlank(p.getDepartment())) {
+            violations.add(MISSING_DEPARTMENT);
+        }
+        Violation contact = checkContactNumber(p.getContactNumber());
+        if (contact != null) {
+            violations.add(contact);
+        }
+        Violation email = checkEmailAddress(p.getEmailAddress());
+        if (email != null) {
+            violations.add(email);
+        }
+        return violations;
+    }
+
+    /**
+     * Check many rows in one pass
+     *
+     * Each invalid row is reported to {@code onInvalid} with its first
+     * violation and its index in the list. Returns the number of valid rows.
+     */
+    public static int validateBatch(List<Participant> rows, ObjIntConsumer<Violation> onInvalid) {
+        int valid = 0;
+        for (int i = 0, n = rows.size(); i < n; i++) {
+            Violation violation = validate(rows.get(i));
+            if (violation == null) {
+                valid++;
+            } else {
+                onInvalid.accept(violation, i);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * True if the value matches {@link #CONTACT_PATTERN}
+     */
+    public static boolean isValidContactNumber(CharSequence value) {
+        int length = value.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '(' || c == ')'
+                    || isRegexSpace(c))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if the value matches {@link #EMAIL_PATTERN}
+     */
+    public static boolean isValidEmailAddress(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        while (i < length && isLocalPartChar(value.charAt(i))) {
+            i++;
+        }
+        // At least one local-part character, then '@', then a non-empty domain
+        if (i == 0 || i >= length - 1 || value.charAt(i) != '@') {
+            return false;
+        }
+        for (i++; i < length; i++) {
+            if (isLineTerminator(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Violation checkContactNumber(String value) {
+        if (isBlank(value)) {
+            return MISSING_CONTACT_NUMBER;
+        }
+        return isValidContactNumber(value) ? null : INVALID_CONTACT_NUMBER;
+    }
+
+    private static Violation checkEmailAddress(String value) {
+        if (isBlank(value)) {
+            return MISSING_EMAIL_ADDRESS;
+        }
+        return isValidEmailAddress(value) ? null : INVALID_EMAIL_ADDRESS;
+    }
+
+    /**
+     * Same as {@code value.trim().isEmpty()} without creating a string
+     */
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+            || c == '+' || c == '_' || c == '.' || c == '-';
+    }
+
+    // \s in java.util.regex
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // Characters '.' does not match in java.util.regex
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
@@ -0,0 +1,100 @@
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text encoding of participants for the HTTP API
+ *
+ * A participant is one line of form-encoded fields, e.g.
+ * {@code id=VU001&name=Ruth+N&department=Arts&contact=0700&email=r%40vu.edu},
+ * with null fields left out. Encoding escapes line breaks, so a list is
+ * simply one participant per line.
+ */
+final class ParticipantWire {
+
+    static final String CONTENT_TYPE = "application/x-www-form-urlencoded; charset=utf-8";
+
+    private ParticipantWire() {
+    }
+
+    static String encode(Participant p) {
+        StringBuilder line = new StringBuilder(160);
+        append(line, "id", p.getRegistrationId());
+        append(line, "name", p.getName());
+        append(line, "department", p.getDepartment());
+        append(line, "partner", p.getDancingPartner());
+        append(line, "contact", p.getContactNumber());
+        append(line, "email", p.getEmailAddress());
+        append(line, "image", p.getImageHash());
+        return line.toString();
+    }
+
+    static String encodeAll(List<Participant> participants) {
+        StringBuilder lines = new StringBuilder(participants.size() * 160);
+        for (Participant p : participants) {
+            lines.append(encode(p)).append('\n');
+        }
+        return lines.toString();
+    }
+
+    /**
+     * Participant from one encoded line; unknown fields are ignored
+     */
+    static Participant decode(String line) {
+        String id = null, name = null, department = null, partner = null;
+        String contact = null, email = null, image = null;
+        int start = 0;
+        while (start < line.length()) {
+            int end = line.indexOf('&', start);
+            if (end < 0) {
+                end = line.length();
+            }
+            int equals = line.indexOf('=', start);
+            if (equals > start && equals < end) {
+                String value = decodeValue(line.substring(equals + 1, end));
+                switch (line.substring(start, equals)) {
+                    case "id" -> id = value;
+                    case "name" -> name = value;
+                    case "department" -> department = value;
+                    case "partner" -> partner = value;
+                    case "contact" -> contact = value;
+                    case "email" -> email = value;
+                    case "image" -> image = value;
+                    default -> { }
+                }
+            }
+            start = end + 1;
+        }
+        return new Participant(id, name, department, partner, contact, email, image);
+    }
+
+    static List<Participant> decodeAll(String lines) {
+        List<Participant> participants = new ArrayList<>();
+        for (String line : lines.split("\n")) {
+            if (!line.isEmpty()) {
+                participants.add(decode(line));
+            }
+        }
+        return participants;
+    }
+
+    static String encodeValue(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    static String decodeValue(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static void append(StringBuilder line, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        if (line.length() > 0) {
+            line.append('&');
+        }
+        line.append(field).append('=').append(encodeValue(value));
+    }
+}
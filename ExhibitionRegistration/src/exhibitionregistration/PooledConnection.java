@@ -0,0 +1,53 @@
+import java.sql.*;
+
+/**
+ * A physical connection owned by {@link ConnectionPool} together with its
+ * prepared-statement cache
+ *
+ * The statements live as long as the connection, so each SQL string is
+ * parsed once per connection rather than once per call.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final Connection connection;
+    private final StatementCache statements;
+
+    PooledConnection(Connection connection, int statementCacheSize, StatementCache.Stats stats) {
+        this.connection = connection;
+        this.statements = new StatementCache(connection, statementCacheSize, stats);
+    }
+
+    /**
+     * Cached prepared statement for the SQL; do not close it
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return statements.prepare(sql);
+    }
+
+    /**
+     * Discard the cached statement for the SQL
+     */
+    public void evict(String sql) {
+        statements.evict(sql);
+    }
+
+    /**
+     * Underlying JDBC connection for statements that should not be cached
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    boolean isClosed() throws SQLException {
+        return connection.isClosed();
+    }
+
+    /**
+     * Close the cached statements and the physical connection
+     */
+    @Override
+    public void close() throws SQLException {
+        statements.close();
+        connection.close();
+    }
+}
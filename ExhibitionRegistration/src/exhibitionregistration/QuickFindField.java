@@ -0,0 +1,124 @@
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Type-ahead search box for finding participants by partial name, email,
+ * department or ID
+ *
+ * Every keystroke queries the in-memory {@link SearchIndex} directly on the
+ * EDT and shows the matches in a drop-down list. Choosing a match with
+ * Enter or a click passes its Registration ID to {@code onOpen}.
+ */
+public class QuickFindField extends JTextField {
+
+    private static final int MAX_RESULTS = 12;
+
+    private final ParticipantService service;
+    private final Consumer<String> onOpen;
+    private final DefaultListModel<SearchIndex.Hit> results = new DefaultListModel<>();
+    private final JList<SearchIndex.Hit> resultList = new JList<>(results);
+    private final JPopupMenu popup = new JPopupMenu();
+
+    /**
+     * Create a search box; {@code onOpen} receives the chosen Registration ID
+     */
+    public QuickFindField(ParticipantService service, Consumer<String> onOpen) {
+        super(20);
+        this.service = service;
+        this.onOpen = onOpen;
+        setFont(new Font("Arial", Font.PLAIN, 13));
+        setToolTipText("Find participants by name, email, department or ID");
+
+        resultList.setFont(new Font("Arial", Font.PLAIN, 13));
+        resultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        resultList.setFocusable(false);
+        resultList.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) {
+                openSelected();
+            }
+        });
+
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(resultList));
+
+        getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                updateResults();
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+                updateResults();
+            }
+        });
+
+        addKeyListener(new KeyAdapter() {
+            public void keyPressed(KeyEvent e) {
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN:
+                        moveSelection(1);
+                        break;
+                    case KeyEvent.VK_UP:
+                        moveSelection(-1);
+                        break;
+                    case KeyEvent.VK_ENTER:
+                        openSelected();
+                        break;
+                    case KeyEvent.VK_ESCAPE:
+                        popup.setVisible(false);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+    }
+
+    private void updateResults() {
+        List<SearchIndex.Hit> hits = service.search(getText(), MAX_RESULTS);
+        results.clear();
+        for (SearchIndex.Hit hit : hits) {
+            results.addElement(hit);
+        }
+
+        if (hits.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        resultList.setSelectedIndex(0);
+        resultList.setVisibleRowCount(Math.min(hits.size(), MAX_RESULTS));
+        popup.setPopupSize(Math.max(getWidth(), 380), resultList.getPreferredScrollableViewportSize().height + 6);
+        if (isShowing()) {
+            popup.show(this, 0, getHeight());
+        }
+    }
+
+    private void moveSelection(int delta) {
+        if (!popup.isVisible() || results.isEmpty()) {
+            return;
+        }
+        int index = Math.max(0, Math.min(results.size() - 1, resultList.getSelectedIndex() + delta));
+        resultList.setSelectedIndex(index);
+        resultList.ensureIndexIsVisible(index);
+    }
+
+    private void openSelected() {
+        SearchIndex.Hit hit = resultList.getSelectedValue();
+        if (!popup.isVisible() || hit == null) {
+            return;
+        }
+        popup.setVisible(false);
+        onOpen.accept(hit.getRegistrationId());
+    }
+}
@@ -0,0 +1,104 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of Registration IDs
+ *
+ * Answers "definitely not registered" or "possibly registered". An ID that
+ * was added is always reported as possibly registered; an ID that was not
+ * is wrongly reported so about 1% of the time while the filter holds no
+ * more than its capacity, and more often beyond that. IDs cannot be
+ * removed. Safe to use from many threads without locking.
+ *
+ * Sized at roughly 10 bits and 7 hash probes per ID, so a million IDs take
+ * about 1.2 MB.
+ */
+public class RegistrationIdFilter {
+
+    private static final int HASHES = 7;
+    private static final double BITS_PER_ID = 9.6;   // 1% false positives at 7 probes
+
+    private final AtomicLongArray words;
+    private final long mask;
+    private final int capacity;
+    private final AtomicInteger added = new AtomicInteger();
+
+    /**
+     * Create an empty filter sized for {@code capacity} IDs
+     */
+    public RegistrationIdFilter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        // A power of two number of bits so a probe is a mask, not a division
+        long bits = Long.highestOneBit((long) Math.ceil(capacity * BITS_PER_ID) - 1) << 1;
+        bits = Math.max(bits, 64);
+        this.words = new AtomicLongArray((int) (bits >>> 6));
+        this.mask = bits - 1;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Record an ID as registered
+     */
+    public void add(String registrationId) {
+        long hash = hash(registrationId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            int word = (int) (bit >>> 6);
+            long value = 1L << bit;
+            if ((words.get(word) & value) == 0) {
+                words.getAndAccumulate(word, value, (a, b) -> a | b);
+            }
+        }
+        added.incrementAndGet();
+    }
+
+    /**
+     * False if the ID has certainly never been added
+     */
+    public boolean mightContain(String registrationId) {
+        long hash = hash(registrationId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + (long) i * h2) & mask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Number of IDs the filter was sized for
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * True once more IDs have been added than the filter was sized for
+     */
+    public boolean isFull() {
+        return added.get() > capacity;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, finished with a mixing step so the
+     * two halves used for double hashing are independent
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,405 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of registrations not yet written to the store
+ *
+ * {@link #append} returns once the record is on disk. Appends from many
+ * threads share fsyncs (group commit): the first caller to need a sync
+ * becomes the leader and forces everything written so far, while callers
+ * arriving during that sync write their records and wait for the next
+ * one, which covers all of them at once.
+ *
+ * The header holds the offset up to which records have been applied to
+ * the store. It is updated without an fsync: after a crash, records
+ * that were applied but not checkpointed are replayed again, so the
+ * applier has to recognise rows that are already there. Before a row
+ * that came from the journal is changed or deleted, {@link #syncCheckpoint}
+ * makes the checkpoint durable, so a replay cannot bring back the old
+ * registration. Once every
+ * record has been applied and the file has grown past a megabyte, it is
+ * cut back to its header.
+ *
+ * A thread interrupted during I/O closes the file's channel for every
+ * thread; the next call reopens it, so one interrupted registration does
+ * not stop the journal.
+ *
+ * File layout: {@code [int magic][int version][long appliedOffset]} then
+ * records of {@code [int length][int crc32][body]}, with bodies in the
+ * {@link LogParticipantStore} record format.
+ */
+public class RegistrationJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x50524A4E;   // "PRJN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    // Cut the file back once it is fully applied and at least this big
+    private static final long RESET_BYTES = 1024 * 1024;
+
+    /**
+     * A journaled registration and the offset just past its record
+     */
+    public static final class Entry {
+        private final Participant participant;
+        private final long end;
+
+        Entry(Participant participant, long end) {
+            this.participant = participant;
+            this.end = end;
+        }
+
+        public Participant getParticipant() {
+            return participant;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+    }
+
+    private final Path file;
+    private volatile FileChannel channel;
+    private FileLock fileLock;
+    private volatile boolean closed = false;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition synced = lock.newCondition();
+    private long end;
+    private long durable;
+    private boolean syncing = false;
+
+    // Checkpoint writes so far, and how many of them are known to be on disk
+    private long checkpointWrites = 0;
+    private long checkpointsDurable = 0;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+
+    /**
+     * Open the journal in the given file, creating it if needed
+     */
+    public RegistrationJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.fileLock = channel.tryLock();
+        if (fileLock == null) {
+            channel.close();
+            throw new IOException("Journal is in use by another process: " + file);
+        }
+
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(HEADER_SIZE).flip();
+            writeFully(header, 0);
+            channel.force(true);
+        } else if (channel.size() < HEADER_SIZE || readInt(0) != MAGIC || readInt(4) != VERSION) {
+            close();
+            throw new IOException("Not a registration journal: " + file);
+        }
+        end = channel.size();
+        durable = end;
+    }
+
+    /**
+     * Records not yet applied to the store, in the order they were written
+     *
+     * A torn or corrupt record left by a crash ends the journal; it and
+     * anything after it are cut off.
+     */
+    public List<Entry> unapplied() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            List<Entry> entries = new ArrayList<>();
+            long offset = Math.max(HEADER_SIZE, Math.min(readLong(CHECKPOINT_OFFSET), end));
+            long good = HEADER_SIZE;
+            // Records before the checkpoint still have to be intact
+            for (long position = HEADER_SIZE; position + RECORD_HEADER_SIZE <= end; ) {
+                byte[] body = readRecord(position);
+                if (body == null) {
+                    break;
+                }
+                position += RECORD_HEADER_SIZE + body.length;
+                good = position;
+                if (position > offset) {
+                    entries.add(new Entry(LogParticipantStore.decode(body), position));
+                }
+            }
+
+            if (good < end) {
+                System.err.println("Discarding " + (end - good) +
+                    " bytes of incomplete records at the end of " + file);
+                channel.truncate(good);
+                channel.force(true);
+                end = good;
+                durable = good;
+            }
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a registration and return once it is durable
+     */
+    public Entry append(Participant p) throws IOException {
+        byte[] body = LogParticipantStore.encodePut(p);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + body.length);
+        record.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+
+        long recordEnd;
+        lock.lock();
+        try {
+            ensureOpen();
+            writeFully(record, end);
+            end += record.limit();
+            recordEnd = end;
+        } finally {
+            lock.unlock();
+        }
+        appends.increment();
+
+        awaitDurable(recordEnd);
+        return new Entry(p, recordEnd);
+    }
+
+    /**
+     * Record that everything up to {@code offset} is in the store, and
+     * empty the journal once nothing is left to apply
+     */
+    public void markApplied(long offset) throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            if (offset >= end && end >= RESET_BYTES && !syncing) {
+                // Reset the checkpoint durably before dropping the records,
+                // so a crash in between replays them instead of losing new ones
+                writeLong(CHECKPOINT_OFFSET, HEADER_SIZE);
+                channel.force(false);
+                channel.truncate(HEADER_SIZE);
+                channel.force(true);
+                end = HEADER_SIZE;
+                durable = HEADER_SIZE;
+                checkpointsDurable = ++checkpointWrites;
+            } else {
+                writeLong(CHECKPOINT_OFFSET, offset);
+                checkpointWrites++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Force the latest checkpoint to disk, if it is not there already
+     */
+    public void syncCheckpoint() throws IOException {
+        long upTo;
+        lock.lock();
+        try {
+            if (checkpointsDurable >= checkpointWrites) {
+                return;
+            }
+            ensureOpen();
+            upTo = checkpointWrites;
+        } finally {
+            lock.unlock();
+        }
+
+        channel.force(false);
+        syncs.increment();
+        lock.lock();
+        try {
+            checkpointsDurable = Math.max(checkpointsDurable, upTo);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registrations appended since the journal was opened
+     */
+    public long getAppendCount() {
+        return appends.sum();
+    }
+
+    /**
+     * Number of fsyncs those appends and checkpoints needed
+     */
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            if (fileLock.isValid()) {
+                fileLock.release();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Wait until {@code position} is on disk, syncing if nobody else is
+     */
+    private void awaitDurable(long position) throws IOException {
+        lock.lock();
+        try {
+            while (durable < position) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+
+                // Become the leader: sync everything written so far
+                ensureOpen();
+                syncing = true;
+                long upTo = end;
+                boolean ok = false;
+                lock.unlock();
+                try {
+                    channel.force(false);
+                    syncs.increment();
+                    ok = true;
+                } catch (AsynchronousCloseException e) {
+                    // Another thread's interrupt closed the channel under us:
+                    // reopen and sync again. Our own interrupt fails the append.
+                    if (e instanceof ClosedByInterruptException) {
+                        throw e;
+                    }
+                } finally {
+                    lock.lock();
+                    syncing = false;
+                    if (ok) {
+                        durable = Math.max(durable, upTo);
+                    }
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reopen the file if an interrupt closed its channel; the caller holds
+     * {@link #lock}
+     *
+     * Records up to {@link #end} were written in full and are kept, waiting
+     * for a sync as before; anything past it is the remains of a write that
+     * failed. The calling thread's interrupt status is cleared while the
+     * file is reopened and then restored.
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        if (channel.isOpen()) {
+            return;
+        }
+        boolean interrupted = Thread.interrupted();
+        try {
+            FileChannel reopened = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock relocked = reopened.tryLock();
+            if (relocked == null) {
+                reopened.close();
+                throw new IOException("Journal is in use by another process: " + file);
+            }
+            if (reopened.size() > end) {
+                reopened.truncate(end);
+            }
+            channel = reopened;
+            fileLock = relocked;
+            System.err.println("Reopened " + file + " after an interrupted thread closed it");
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Body of the record at {@code position}, or null if it is torn or corrupt
+     */
+    private byte[] readRecord(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        if (!readFully(header, position)) {
+            return null;
+        }
+        header.flip();
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length > end) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (!readFully(body, position + RECORD_HEADER_SIZE)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body.array());
+        return (int) crc.getValue() == checksum ? body.array() : null;
+    }
+
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private int readInt(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        if (!readFully(buffer, position)) {
+            throw new EOFException("Unexpected end of " + file);
+        }
+        return buffer.getInt(0);
+    }
+
+    private long readLong(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        if (!readFully(buffer, position)) {
+            throw new EOFException("Unexpected end of " + file);
+        }
+        return buffer.getLong(0);
+    }
+
+    private void writeLong(long position, long value) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(value).flip();
+        writeFully(buffer, position);
+    }
+}
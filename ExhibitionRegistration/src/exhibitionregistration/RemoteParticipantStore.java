@@ -0,0 +1,267 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store served by a {@link ParticipantServer}
+ *
+ * Lets a desk work against the shared server instead of opening the
+ * database file itself. Every call is one blocking HTTP request, so like
+ * the other stores it must be used off the EDT. Server and connection
+ * errors surface as {@link SQLException}, duplicate IDs as
+ * {@link SQLIntegrityConstraintViolationException}.
+ *
+ * ID images stay content-addressed on both sides: before a participant is
+ * written its image is uploaded if the server lacks it, and a participant
+ * looked up by ID has its image downloaded into the local image store if
+ * this desk has not seen it yet.
+ */
+public class RemoteParticipantStore implements ParticipantStore {
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int SCAN_PAGE_SIZE = 1000;
+    private static final String CONNECTION_FAILURE_STATE = "08006";
+
+    private final URI base;
+    private final ImageStore imageStore;
+    private final HttpClient client;
+
+    // Images known to be on the server, so each is only checked once
+    private final Set<String> uploadedImages = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Connect to the server at {@code base}, e.g. {@code http://desk1:8470/};
+     * {@code imageStore} may be null if images are not needed
+     */
+    public RemoteParticipantStore(URI base, ImageStore imageStore) {
+        this.base = base.getPath().endsWith("/") ? base : URI.create(base + "/");
+        this.imageStore = imageStore;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+    }
+
+    /**
+     * True if the location names a participant server
+     */
+    public static boolean isLocation(String location) {
+        return location.startsWith("http://") || location.startsWith("https://");
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        uploadImage(p.getImageHash());
+        send(request("participants").POST(body(ParticipantWire.encode(p))));
+        return 1;
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        for (Participant p : rows) {
+            uploadImage(p.getImageHash());
+        }
+        String reply = send(request("participants?batch").POST(body(ParticipantWire.encodeAll(rows))));
+
+        // First line is the insert count, then "index state message" per failed row
+        String[] lines = reply.split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String[] parts = lines[i].split(" ", 3);
+            if (parts.length < 3) {
+                continue;
+            }
+            String state = parts[1].equals("-") ? null : parts[1];
+            onRowFailure.accept(error(state, ParticipantWire.decodeValue(parts[2]),
+                state != null && state.startsWith("23")), Integer.parseInt(parts[0]));
+        }
+        return Integer.parseInt(lines[0].trim());
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        uploadImage(p.getImageHash());
+        HttpResponse<String> response = exchange(request(participantPath(p.getRegistrationId()) + "?upsert")
+            .PUT(body(ParticipantWire.encode(p))));
+        return response.statusCode() == 201;
+    }
+
+    @Override
+    public boolean exists(String registrationId) throws SQLException {
+        HttpResponse<String> response = exchange(request(participantPath(registrationId))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody()), 404);
+        return response.statusCode() == 200;
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        HttpResponse<String> response = exchange(request(participantPath(registrationId)).GET(), 404);
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        Participant p = ParticipantWire.decode(response.body().trim());
+        downloadImage(p.getImageHash());
+        return p;
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        return ParticipantWire.decodeAll(send(request("participants?after=" +
+            ParticipantWire.encodeValue(afterId) + "&limit=" + limit).GET()));
+    }
+
+    /**
+     * Reads the server a page at a time, so memory use does not depend on
+     * the number of participants
+     */
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        String lastId = "";
+        while (true) {
+            List<Participant> page = findPage(lastId, SCAN_PAGE_SIZE);
+            page.forEach(action);
+            if (page.size() < SCAN_PAGE_SIZE) {
+                return;
+            }
+            lastId = page.get(page.size() - 1).getRegistrationId();
+        }
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return Integer.parseInt(send(request("participants?count").GET()).trim());
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        uploadImage(p.getImageHash());
+        return Integer.parseInt(send(request(participantPath(p.getRegistrationId()))
+            .PUT(body(ParticipantWire.encode(p)))).trim());
+    }
+
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        return Integer.parseInt(send(request(participantPath(registrationId)).DELETE()).trim());
+    }
+
+    /**
+     * Nothing to release; the server owns the store
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Make sure the server has a locally stored image
+     */
+    private void uploadImage(String hash) throws SQLException {
+        if (hash == null || imageStore == null || uploadedImages.contains(hash)
+                || !imageStore.contains(hash)) {
+            return;
+        }
+        HttpResponse<String> head = exchange(request("images/" + hash)
+            .method("HEAD", HttpRequest.BodyPublishers.noBody()), 404);
+        if (head.statusCode() == 404) {
+            try {
+                send(request("images/" + hash)
+                    .PUT(HttpRequest.BodyPublishers.ofFile(imageStore.pathFor(hash))));
+            } catch (IOException e) {
+                throw new SQLException("Cannot read image " + hash + ": " + e.getMessage(), e);
+            }
+        }
+        uploadedImages.add(hash);
+    }
+
+    /**
+     * Fetch an image this desk does not have yet; a failure only costs the
+     * picture, not the lookup
+     */
+    private void downloadImage(String hash) {
+        if (hash == null || imageStore == null || !ImageStore.isValidHash(hash) || imageStore.contains(hash)) {
+            return;
+        }
+        try {
+            HttpResponse<InputStream> response = client.send(request("images/" + hash).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream in = response.body()) {
+                if (response.statusCode() == 200) {
+                    imageStore.put(in);
+                    uploadedImages.add(hash);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot fetch image " + hash + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String participantPath(String registrationId) {
+        // Path segments encode spaces as %20, not +
+        return "participants/" + ParticipantWire.encodeValue(registrationId).replace("+", "%20");
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(base.resolve(path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", ParticipantWire.CONTENT_TYPE);
+    }
+
+    private static HttpRequest.BodyPublisher body(String text) {
+        return HttpRequest.BodyPublishers.ofString(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Body of a successful reply
+     */
+    private String send(HttpRequest.Builder request) throws SQLException {
+        return exchange(request).body();
+    }
+
+    /**
+     * Reply with a 2xx status or one of the {@code accepted} ones; anything
+     * else is thrown as the server's SQLException
+     */
+    private HttpResponse<String> exchange(HttpRequest.Builder request, int... accepted) throws SQLException {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new SQLException("Cannot reach participant server " + base + ": " + e.getMessage(),
+                CONNECTION_FAILURE_STATE, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the participant server", e);
+        }
+
+        int status = response.statusCode();
+        if (status / 100 == 2) {
+            return response;
+        }
+        for (int ok : accepted) {
+            if (status == ok) {
+                return response;
+            }
+        }
+        String state = response.headers().firstValue(ParticipantServer.SQL_STATE_HEADER).orElse(null);
+        throw error(state, "Server replied " + status + ": " + response.body(), status == 409);
+    }
+
+    private static SQLException error(String state, String message, boolean duplicate) {
+        return duplicate ? new SQLIntegrityConstraintViolationException(message, state)
+            : new SQLException(message, state);
+    }
+}
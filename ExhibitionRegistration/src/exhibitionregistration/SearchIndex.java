@@ -0,0 +1,594 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory type-ahead index over participant name, email, department and ID
+ *
+ * Text is split into lower-case words and every word is indexed by its
+ * character trigrams. Each word is padded with two start markers, so one-
+ * and two-letter queries still work as word prefixes. Postings are plain
+ * growable {@code int[]} lists of document numbers in ascending order,
+ * held in an open-addressing table keyed by the packed trigram as a
+ * primitive long, and department names are interned into a small table.
+ * A query is answered by intersecting the postings of its trigrams,
+ * starting with the shortest list, and then checking the candidates. Query words shorter than three
+ * letters match word prefixes; longer ones match anywhere in a word. If
+ * nothing matches exactly, the index falls back to documents sharing at
+ * least half of the query's trigrams, which tolerates a typo or two.
+ *
+ * Deleted and replaced participants are only marked dead; the index is
+ * rebuilt from the live documents once they make up less than half of it.
+ *
+ * The startup scan feeds rows through {@link #scanned} while registrations,
+ * edits and deletes keep arriving through {@link #put} and {@link #remove}.
+ * As in {@link DepartmentStatistics}, an ID changed since the scan began is
+ * ignored by the scan from then on, since the scan may have read the row
+ * just before the change was written.
+ */
+public class SearchIndex implements ParticipantListener {
+
+    private static final char START = '\u0001';
+    private static final double FUZZY_MIN_SHARE = 0.5;
+    private static final int FUZZY_MIN_COMMON = 1000;
+    private static final int DIRECT_CHECK_CANDIDATES = 64;
+
+    /**
+     * A search result
+     */
+    public static final class Hit {
+        private final String registrationId;
+        private final String name;
+        private final String department;
+        private final String emailAddress;
+
+        Hit(String registrationId, String name, String department, String emailAddress) {
+            this.registrationId = registrationId;
+            this.name = name;
+            this.department = department;
+            this.emailAddress = emailAddress;
+        }
+
+        public String getRegistrationId() {
+            return registrationId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDepartment() {
+            return department;
+        }
+
+        public String getEmailAddress() {
+            return emailAddress;
+        }
+
+        @Override
+        public String toString() {
+            return registrationId + " - " + name + " (" + department + ")";
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per-document columns, indexed by document number
+    private String[] ids = new String[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    private int[] departmentCodes = new int[1024];
+    private boolean[] alive = new boolean[1024];
+    private int docCount = 0;
+    private int liveCount = 0;
+
+    private final Map<String, Integer> docById = new HashMap<>();
+
+    // Interned department names
+    private final List<String> departments = new ArrayList<>();
+    private final Map<String, Integer> departmentCodeByName = new HashMap<>();
+
+    // Trigram (three 16-bit chars packed into a long) -> document numbers
+    private GramMap postings = new GramMap();
+
+    // Only while the startup scan runs: IDs changed since it began
+    private Set<String> changedDuringRebuild;
+
+    /**
+     * Start taking rows from the startup scan through {@link #scanned},
+     * until {@link #finishRebuild}
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * A participant read by the startup scan; ignored if it has been
+     * changed or deleted since the scan began
+     */
+    public void scanned(Participant p) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null && changedDuringRebuild.contains(p.getRegistrationId())) {
+                return;
+            }
+            putLocked(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The startup scan is over, whether or not it completed
+     */
+    public void finishRebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a participant
+     */
+    public void put(Participant p) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(p.getRegistrationId());
+            }
+            putLocked(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a participant
+     */
+    public void remove(String registrationId) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(registrationId);
+            }
+            removeLocked(registrationId);
+            compactIfSparseLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of participants in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Participants matching every word of the query, best matches first
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Hit> hits = exactSearch(words, limit);
+            if (hits.isEmpty()) {
+                hits = fuzzySearch(words, limit);
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void participantAdded(Participant p) {
+        put(p);
+    }
+
+    @Override
+    public void participantUpdated(Participant before, Participant after) {
+        put(after);
+    }
+
+    @Override
+    public void participantRemoved(Participant p) {
+        remove(p.getRegistrationId());
+    }
+
+    private List<Hit> exactSearch(List<String> words, int limit) {
+        List<IntList> lists = new ArrayList<>();
+        for (String word : words) {
+            for (long gram : queryGrams(word)) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        // Intersect rarest first; once few candidates are left it is cheaper
+        // to check them directly than to walk the remaining long lists
+        int[] candidates = Arrays.copyOf(lists.get(0).values, lists.get(0).size);
+        for (int i = 1; i < lists.size() && candidates.length > DIRECT_CHECK_CANDIDATES; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int doc : candidates) {
+            if (alive[doc] && containsAll(doc, words)) {
+                hits.add(hit(doc));
+                if (hits.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private List<Hit> fuzzySearch(List<String> words, int limit) {
+        // Grams found in most documents say nothing about which one is
+        // meant and would cost a pass over most of the index, so skip them
+        int common = Math.max(FUZZY_MIN_COMMON, liveCount / 4);
+        List<IntList> lists = new ArrayList<>();
+        for (String word : words) {
+            for (long gram : indexGrams(word)) {
+                IntList list = postings.get(gram);
+                if (list == null || list.size <= common) {
+                    lists.add(list);
+                }
+            }
+        }
+        int totalGrams = lists.size();
+        int threshold = Math.max(1, (int) Math.ceil(totalGrams * FUZZY_MIN_SHARE));
+
+        // Collect documents as they reach the threshold, so only those are
+        // ranked instead of every document in the index
+        int[] scores = new int[docCount];
+        IntList candidates = new IntList();
+        for (IntList list : lists) {
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int doc = list.values[i];
+                if (++scores[doc] == threshold && alive[doc]) {
+                    candidates.add(doc);
+                }
+            }
+        }
+
+        // Scores are small integers, so pick the best by counting per score
+        int[] perScore = new int[totalGrams + 1];
+        for (int i = 0; i < candidates.size; i++) {
+            perScore[scores[candidates.values[i]]]++;
+        }
+        List<Hit> hits = new ArrayList<>();
+        for (int score = totalGrams; score >= threshold && hits.size() < limit; score--) {
+            if (perScore[score] == 0) {
+                continue;
+            }
+            for (int i = 0; i < candidates.size && hits.size() < limit; i++) {
+                if (scores[candidates.values[i]] == score) {
+                    hits.add(hit(candidates.values[i]));
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Elements of the sorted array {@code a} that also appear in {@code b}
+     */
+    private static int[] intersect(int[] a, IntList b) {
+        int[] out = new int[a.length];
+        int n = 0;
+        if ((long) a.length * 16 < b.size) {
+            // Few candidates against a long list: binary search each one
+            int from = 0;
+            for (int doc : a) {
+                int index = Arrays.binarySearch(b.values, from, b.size, doc);
+                if (index >= 0) {
+                    out[n++] = doc;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+        } else {
+            int i = 0, j = 0;
+            while (i < a.length && j < b.size) {
+                if (a[i] < b.values[j]) {
+                    i++;
+                } else if (a[i] > b.values[j]) {
+                    j++;
+                } else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private boolean containsAll(int doc, List<String> words) {
+        for (String word : words) {
+            if (!containsIgnoreCase(names[doc], word)
+                    && !containsIgnoreCase(emails[doc], word)
+                    && !containsIgnoreCase(departments.get(departmentCodes[doc]), word)
+                    && !containsIgnoreCase(ids[doc], word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsIgnoreCase(String text, String word) {
+        if (text == null) {
+            return false;
+        }
+        for (int i = 0; i + word.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, word, 0, word.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Hit hit(int doc) {
+        return new Hit(ids[doc], names[doc], departments.get(departmentCodes[doc]), emails[doc]);
+    }
+
+    private void putLocked(Participant p) {
+        removeLocked(p.getRegistrationId());
+        addLocked(p.getRegistrationId(), p.getName(), p.getEmailAddress(),
+            departmentCode(p.getDepartment()));
+        compactIfSparseLocked();
+    }
+
+    private void addLocked(String id, String name, String email, int departmentCode) {
+        ensureCapacity(docCount + 1);
+        int doc = docCount++;
+        ids[doc] = id;
+        names[doc] = name;
+        emails[doc] = email;
+        departmentCodes[doc] = departmentCode;
+        alive[doc] = true;
+        liveCount++;
+        docById.put(id, doc);
+
+        String text = id + ' ' + name + ' ' + email + ' ' + departments.get(departmentCode);
+        for (String word : tokenize(text)) {
+            for (long gram : indexGrams(word)) {
+                IntList list = postings.getOrAdd(gram);
+                // Words can repeat grams; keep each document once per list
+                if (list.size == 0 || list.values[list.size - 1] != doc) {
+                    list.add(doc);
+                }
+            }
+        }
+    }
+
+    private void removeLocked(String id) {
+        Integer doc = docById.remove(id);
+        if (doc != null && alive[doc]) {
+            alive[doc] = false;
+            liveCount--;
+        }
+    }
+
+    private void compactIfSparseLocked() {
+        if (docCount > 1024 && liveCount < docCount / 2) {
+            compactLocked();
+        }
+    }
+
+    /**
+     * Rebuild from live documents so postings no longer carry dead entries
+     */
+    private void compactLocked() {
+        String[] oldIds = ids, oldNames = names, oldEmails = emails;
+        int[] oldDepartments = departmentCodes;
+        boolean[] oldAlive = alive;
+        int oldCount = docCount;
+
+        int capacity = Math.max(1024, liveCount * 2);
+        ids = new String[capacity];
+        names = new String[capacity];
+        emails = new String[capacity];
+        departmentCodes = new int[capacity];
+        alive = new boolean[capacity];
+        docCount = 0;
+        liveCount = 0;
+        docById.clear();
+        postings = new GramMap();
+
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (oldAlive[doc]) {
+                addLocked(oldIds[doc], oldNames[doc], oldEmails[doc], oldDepartments[doc]);
+            }
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        departmentCodes = Arrays.copyOf(departmentCodes, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+    }
+
+    private int departmentCode(String department) {
+        String name = department == null ? "" : department;
+        Integer code = departmentCodeByName.get(name);
+        if (code == null) {
+            code = departments.size();
+            departments.add(name);
+            departmentCodeByName.put(name, code);
+        }
+        return code;
+    }
+
+    /**
+     * All trigrams of a word including its start-padded prefixes
+     */
+    private static long[] indexGrams(String word) {
+        String padded = "" + START + START + word;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(padded, i);
+        }
+        return grams;
+    }
+
+    /**
+     * Trigrams to look up for a query word: its inner trigrams if it has
+     * any (substring match), else its padded prefix gram (prefix match)
+     */
+    private static long[] queryGrams(String word) {
+        if (word.length() < 3) {
+            String padded = "" + START + START + word;
+            return new long[] {gram(padded, padded.length() - 3)};
+        }
+        long[] grams = new long[word.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(word, i);
+        }
+        return grams;
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Growable list of ints without boxing
+     */
+    private static final class IntList {
+        int[] values = new int[4];
+        int size = 0;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Open-addressing map from packed trigram to postings, with linear
+     * probing and no boxing
+     *
+     * Key 0 marks an empty slot; no trigram is 0, as words are made of
+     * letters and digits and padded with {@link #START}.
+     */
+    private static final class GramMap {
+        private long[] keys = new long[1024];
+        private IntList[] values = new IntList[1024];
+        private int size = 0;
+
+        IntList get(long gram) {
+            int mask = keys.length - 1;
+            for (int slot = slot(gram, mask); ; slot = (slot + 1) & mask) {
+                if (keys[slot] == gram) {
+                    return values[slot];
+                }
+                if (keys[slot] == 0) {
+                    return null;
+                }
+            }
+        }
+
+        IntList getOrAdd(long gram) {
+            int mask = keys.length - 1;
+            int slot = slot(gram, mask);
+            while (keys[slot] != 0) {
+                if (keys[slot] == gram) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            IntList list = new IntList();
+            keys[slot] = gram;
+            values[slot] = list;
+            if (++size * 3 > keys.length * 2) {
+                grow();
+            }
+            return list;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IntList[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new IntList[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i], mask);
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long gram, int mask) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-connection cache of prepared statements keyed by SQL text
+ *
+ * A cache belongs to exactly one physical connection and is only touched by
+ * the thread currently borrowing that connection, so it needs no locking.
+ * The least recently used statement is closed once {@code maxSize} distinct
+ * SQL strings are cached. Hit/miss counters are shared through {@link Stats}
+ * so that the pool can report one figure for all its connections.
+ */
+public class StatementCache implements AutoCloseable {
+
+    private final Connection conn;
+    private final int maxSize;
+    private final Stats stats;
+
+    // Access-ordered so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, PreparedStatement> statements =
+        new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Create a cache for the given connection
+     */
+    public StatementCache(Connection conn, int maxSize, Stats stats) {
+        this.conn = conn;
+        this.maxSize = maxSize;
+        this.stats = stats;
+    }
+
+    /**
+     * Return a ready-to-use statement for the SQL, preparing it on first use
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement pst = statements.get(sql);
+        if (pst != null && !pst.isClosed()) {
+            stats.hits.increment();
+            pst.clearParameters();
+            return pst;
+        }
+
+        stats.misses.increment();
+        pst = conn.prepareStatement(sql);
+        statements.put(sql, pst);
+        evictOverflow();
+        return pst;
+    }
+
+    /**
+     * Drop and close the cached statement for the SQL, e.g. after it failed
+     */
+    public void evict(String sql) {
+        PreparedStatement pst = statements.remove(sql);
+        if (pst != null) {
+            stats.evictions.increment();
+            closeQuietly(pst);
+        }
+    }
+
+    /**
+     * Number of statements currently cached
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            stats.evictions.increment();
+            closeQuietly(eldest);
+        }
+    }
+
+    /**
+     * Close every cached statement
+     */
+    @Override
+    public void close() {
+        for (PreparedStatement pst : statements.values()) {
+            closeQuietly(pst);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement pst) {
+        try {
+            pst.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters shared by a group of caches
+     */
+    public static class Stats {
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        /**
+         * Fraction of prepare calls served from the cache, 0 when unused
+         */
+        public double getHitRate() {
+            long h = getHits();
+            long total = h + getMisses();
+            return total == 0 ? 0.0 : (double) h / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, evictions=%d, hit rate=%.1f%%",
+                getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+        }
+    }
+}
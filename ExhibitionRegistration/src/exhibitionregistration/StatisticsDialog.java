@@ -0,0 +1,131 @@
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard of participants per department and by partner status
+ *
+ * Reads {@link DepartmentStatistics}, which is kept current in memory, so
+ * the figures are live without querying the database. A timer checks the
+ * statistics version twice a second and only rebuilds the table when
+ * something changed.
+ */
+public class StatisticsDialog extends JDialog {
+
+    private static final int REFRESH_MS = 500;
+
+    private final DepartmentStatistics statistics;
+    private final DepartmentTableModel model = new DepartmentTableModel();
+    private final JLabel lblTotal = new JLabel();
+    private final JLabel lblPartnered = new JLabel();
+    private final JLabel lblUnpartnered = new JLabel();
+    private final Timer timer;
+    private long shownVersion = -1;
+
+    /**
+     * Rows of the department table
+     */
+    private static class DepartmentTableModel extends AbstractTableModel {
+
+        private static final String[] COLUMNS = {"Department", "Participants", "Share"};
+
+        private List<Map.Entry<String, Integer>> rows = new ArrayList<>();
+        private int total;
+
+        void setCounts(Map<String, Integer> byDepartment, int total) {
+            this.rows = new ArrayList<>(byDepartment.entrySet());
+            this.total = total;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 1 ? Integer.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Map.Entry<String, Integer> entry = rows.get(row);
+            switch (column) {
+                case 0:
+                    return entry.getKey();
+                case 1:
+                    return entry.getValue();
+                default:
+                    return total == 0 ? "" : String.format("%.1f%%", entry.getValue() * 100.0 / total);
+            }
+        }
+    }
+
+    /**
+     * Create the dashboard for the given statistics
+     */
+    public StatisticsDialog(Frame owner, DepartmentStatistics statistics) {
+        super(owner, "Department Statistics", false);
+        this.statistics = statistics;
+        setSize(520, 420);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+
+        JPanel summaryPanel = new JPanel(new GridLayout(1, 3, 10, 0));
+        summaryPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        for (JLabel label : new JLabel[] {lblTotal, lblPartnered, lblUnpartnered}) {
+            label.setFont(new Font("Arial", Font.BOLD, 13));
+            summaryPanel.add(label);
+        }
+
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 13));
+
+        add(summaryPanel, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        timer = new Timer(REFRESH_MS, e -> refresh());
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        super.dispose();
+    }
+
+    private void refresh() {
+        if (!statistics.isReady()) {
+            lblTotal.setText("Counting participants...");
+            return;
+        }
+        if (statistics.getVersion() == shownVersion) {
+            return;
+        }
+
+        DepartmentStatistics.Snapshot snapshot = statistics.snapshot();
+        shownVersion = snapshot.getVersion();
+        lblTotal.setText("Total: " + snapshot.getTotal());
+        lblPartnered.setText("With partner: " + snapshot.getPartnered());
+        lblUnpartnered.setText("Without partner: " + snapshot.getUnpartnered());
+        model.setCounts(snapshot.getByDepartment(), snapshot.getTotal());
+    }
+}
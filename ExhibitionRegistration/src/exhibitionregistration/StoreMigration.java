@@ -0,0 +1,92 @@
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Command-line tool copying all participants from one store to another
+ *
+ * Usage: {@code java StoreMigration <source> <target>}, where each location
+ * is either a JDBC URL such as
+ * {@code jdbc:ucanaccess://src/exhibitionregistration/sql_setup_script.sql}
+ * (the Participants table from sql_setup_script.sql, created if missing) or
+ * {@code log:<file>} for the embedded {@link LogParticipantStore}. The
+ * source is read a page at a time in ID order and written in batches, so
+ * memory use does not depend on the number of participants. The target
+ * must be empty. ID images stay in the shared image store; only their
+ * hashes are copied.
+ *
+ * Run the application once against the source first if it still holds
+ * images inline, so they are moved into the image store.
+ */
+public class StoreMigration {
+
+    private static final int POOL_SIZE = 2;
+    private static final long POOL_TIMEOUT_MS = 10000;
+
+    private final ParticipantStore source;
+    private final ParticipantStore target;
+
+    /**
+     * Create a migration between two open stores
+     */
+    public StoreMigration(ParticipantStore source, ParticipantStore target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Copy every participant, returning the number copied
+     */
+    public int run() throws SQLException {
+        if (target.count() > 0) {
+            throw new SQLException("Target store is not empty");
+        }
+
+        int copied = 0;
+        String lastId = "";
+        while (true) {
+            List<Participant> page = source.findPage(lastId, BulkImporter.DEFAULT_CHUNK_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            copied += target.insertBatch(page, (error, index) ->
+                System.err.println("Not copied: " + page.get(index).getRegistrationId() +
+                    " (" + error.getMessage() + ")"));
+            lastId = page.get(page.size() - 1).getRegistrationId();
+            System.out.println("Copied " + copied + " participants...");
+        }
+        return copied;
+    }
+
+    /**
+     * Open a store from a {@code log:<file>} location or a JDBC URL
+     */
+    public static ParticipantStore open(String location) throws SQLException {
+        if (LogParticipantStore.isLocation(location)) {
+            return LogParticipantStore.open(location);
+        }
+        ParticipantRepository repository =
+            new ParticipantRepository(new ConnectionPool(location, POOL_SIZE, POOL_TIMEOUT_MS));
+        repository.createTableIfNotExists();
+        return repository;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java StoreMigration <source> <target>");
+            System.err.println("  locations are JDBC URLs or log:<file>");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        try (ParticipantStore source = open(args[0]);
+             ParticipantStore target = open(args[1])) {
+            int copied = new StoreMigration(source, target).run();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Copied " + copied + " of " + source.count() +
+                " participants in " + elapsed + " ms");
+        } catch (SQLException e) {
+            System.err.println("Migration failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import javax.swing.ImageIcon;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of decoded thumbnails keyed by RegistrationID
+ *
+ * The bound is the approximate decoded size (4 bytes per pixel) rather than
+ * an entry count, so a few large icons cannot blow the budget. Each entry
+ * remembers the image hash it was made from; a lookup with a different hash
+ * (the participant's photo was replaced) is treated as a miss.
+ */
+public class ThumbnailCache {
+
+    private final long maxBytes;
+    private long currentBytes = 0;
+
+    // Access-ordered so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * Create a cache holding at most {@code maxBytes} of decoded pixels
+     */
+    public ThumbnailCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Cached thumbnail for the participant, or null if absent or stale
+     */
+    public synchronized ImageIcon get(String registrationId, String imageHash) {
+        Entry entry = entries.get(registrationId);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.imageHash.equals(imageHash)) {
+            remove(registrationId);
+            return null;
+        }
+        return entry.icon;
+    }
+
+    /**
+     * Cache a thumbnail, evicting least recently used entries as needed
+     */
+    public synchronized void put(String registrationId, String imageHash, ImageIcon icon) {
+        Entry entry = new Entry(imageHash, icon);
+        Entry previous = entries.put(registrationId, entry);
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += entry.bytes;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            if (eldest.getValue() == entry) {
+                // Never evict the entry just added
+                continue;
+            }
+            currentBytes -= eldest.getValue().bytes;
+            it.remove();
+        }
+    }
+
+    /**
+     * Drop the cached thumbnail for the participant
+     */
+    public synchronized void remove(String registrationId) {
+        Entry entry = entries.remove(registrationId);
+        if (entry != null) {
+            currentBytes -= entry.bytes;
+        }
+    }
+
+    /**
+     * Approximate decoded size of all cached thumbnails
+     */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    private static class Entry {
+        final String imageHash;
+        final ImageIcon icon;
+        final long bytes;
+
+        Entry(String imageHash, ImageIcon icon) {
+            this.imageHash = imageHash;
+            this.icon = icon;
+            this.bytes = 4L * Math.max(1, icon.getIconWidth()) * Math.max(1, icon.getIconHeight());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Decodes images straight to thumbnail size
+ *
+ * Large photos are read with source subsampling, so the decoder only
+ * produces about as many pixels as the thumbnail needs, and the remaining
+ * reduction is one bilinear scale. This avoids decoding a full phone photo
+ * and running {@code getScaledInstance} on it.
+ */
+public final class Thumbnails {
+
+    private Thumbnails() {
+    }
+
+    /**
+     * Decode an image file into a thumbnail fitting within the given box
+     */
+    public static BufferedImage fromFile(Path file, int maxWidth, int maxHeight) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return fromStream(in, maxWidth, maxHeight);
+        }
+    }
+
+    private static BufferedImage fromStream(InputStream in, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // Largest whole-pixel step that still leaves at least the target size
+                int step = Math.max(1, Math.min(width / maxWidth, height / maxHeight));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+
+                return scaleToFit(reader.read(0, param), maxWidth, maxHeight);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image to fit within the box, keeping its aspect ratio
+     */
+    public static BufferedImage scaleToFit(BufferedImage source, int maxWidth, int maxHeight) {
+        double scale = Math.min((double) maxWidth / source.getWidth(),
+            (double) maxHeight / source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = result.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return result;
+    }
+}
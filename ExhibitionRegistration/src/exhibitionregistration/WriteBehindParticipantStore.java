@@ -0,0 +1,420 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Participant store that accepts registrations into a journal and writes
+ * them to the real store in the background
+ *
+ * {@link #insert} returns as soon as the registration is durable in the
+ * {@link RegistrationJournal}, which at peak times costs a share of one
+ * fsync instead of a database write. An applier thread takes the
+ * journaled registrations in order and inserts them into the underlying
+ * store in batches. Registrations that have not been applied yet are
+ * already visible to lookups, paging and counts. Updates, upserts, deletes
+ * and bulk imports first wait for the applier to catch up, so they always
+ * see the registration they follow.
+ *
+ * Registrations journaled but not applied when the application stopped are
+ * replayed when the store is next opened. A registration the database
+ * refuses when it is applied (for example a duplicate ID added elsewhere
+ * meanwhile) was already confirmed to the clerk, so it is appended to a
+ * {@code .rejected} file next to the journal and passed to the
+ * {@link RejectionListener}, which can tell the clerk to re-enter it.
+ */
+public class WriteBehindParticipantStore implements ParticipantStore {
+
+    private static final int APPLY_BATCH_SIZE = 200;
+    private static final long RETRY_MIN_MS = 500;
+    private static final long RETRY_MAX_MS = 30000;
+    // Longest a change waits for the registrations before it; long enough
+    // for the applier to retry at its slowest backoff
+    private static final long DRAIN_TIMEOUT_MS = 2 * RETRY_MAX_MS;
+
+    private final ParticipantStore target;
+    private final RegistrationJournal journal;
+    private final Path rejectedFile;
+    private final RejectionListener rejectionListener;
+
+    // Journaled but not yet applied, by ID
+    private final ConcurrentSkipListMap<String, Participant> pending = new ConcurrentSkipListMap<>();
+    private final LinkedBlockingQueue<RegistrationJournal.Entry> queue = new LinkedBlockingQueue<>();
+
+    // Guards the applier's progress for drain()
+    private final Object appliedLock = new Object();
+    private long enqueued = 0;
+    private long applied = 0;
+
+    private final Thread applier;
+    private volatile boolean closing = false;
+
+    /**
+     * Told about journaled registrations the store refused
+     *
+     * Called on the applier thread, so implementations must not touch
+     * Swing components directly.
+     */
+    @FunctionalInterface
+    public interface RejectionListener {
+
+        /**
+         * {@code p} was journaled, but the store refused it with {@code error};
+         * it has been recorded in {@code rejectedFile}
+         */
+        void registrationRejected(Participant p, SQLException error, Path rejectedFile);
+    }
+
+    /**
+     * Put a journal in front of {@code target}, replaying anything the
+     * journal still holds from a previous run
+     */
+    public WriteBehindParticipantStore(ParticipantStore target, Path journalFile) throws SQLException {
+        this(target, journalFile, (p, error, rejectedFile) -> { });
+    }
+
+    /**
+     * Put a journal in front of {@code target}, telling
+     * {@code rejectionListener} about registrations the store refuses,
+     * including any refused while replaying
+     */
+    public WriteBehindParticipantStore(ParticipantStore target, Path journalFile,
+            RejectionListener rejectionListener) throws SQLException {
+        this.target = target;
+        this.rejectedFile = journalFile.resolveSibling(journalFile.getFileName() + ".rejected");
+        this.rejectionListener = rejectionListener;
+        try {
+            this.journal = new RegistrationJournal(journalFile);
+            List<RegistrationJournal.Entry> replay = journal.unapplied();
+            if (!replay.isEmpty()) {
+                System.out.println("Replaying " + replay.size() + " journaled registrations");
+            }
+            for (RegistrationJournal.Entry entry : replay) {
+                enqueue(entry);
+            }
+        } catch (IOException e) {
+            throw new SQLException("Cannot open registration journal " + journalFile +
+                ": " + e.getMessage(), e);
+        }
+
+        applier = new Thread(this::applyLoop, "journal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @Override
+    public int insert(Participant p) throws SQLException {
+        // Refuse duplicates now, while the clerk can still correct them
+        synchronized (pending) {
+            if (pending.containsKey(p.getRegistrationId()) || target.exists(p.getRegistrationId())) {
+                throw new SQLIntegrityConstraintViolationException(
+                    "Registration ID already exists: " + p.getRegistrationId());
+            }
+            pending.put(p.getRegistrationId(), p);
+        }
+
+        try {
+            enqueue(journal.append(p));
+            return 1;
+        } catch (IOException e) {
+            pending.remove(p.getRegistrationId());
+            throw new SQLException("Error writing registration journal: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public int insertBatch(List<Participant> rows, ObjIntConsumer<SQLException> onRowFailure)
+            throws SQLException {
+        drain();
+        return target.insertBatch(rows, onRowFailure);
+    }
+
+    @Override
+    public boolean upsert(Participant p) throws SQLException {
+        settle(p.getRegistrationId());
+        return target.upsert(p);
+    }
+
+    @Override
+    public boolean exists(String registrationId) throws SQLException {
+        return pending.containsKey(registrationId) || target.exists(registrationId);
+    }
+
+    @Override
+    public Participant findById(String registrationId) throws SQLException {
+        Participant p = pending.get(registrationId);
+        return p != null ? p : target.findById(registrationId);
+    }
+
+    @Override
+    public List<Participant> findPage(String afterId, int limit) throws SQLException {
+        List<Participant> stored = target.findPage(afterId, limit);
+        if (pending.isEmpty()) {
+            return stored;
+        }
+
+        // Merge the pending registrations into the page in ID order
+        List<Participant> waiting = new ArrayList<>();
+        for (Participant p : pending.tailMap(afterId, false).values()) {
+            if (waiting.size() == limit) {
+                break;
+            }
+            waiting.add(p);
+        }
+        List<Participant> page = new ArrayList<>(limit);
+        int i = 0, j = 0;
+        while (page.size() < limit && (i < stored.size() || j < waiting.size())) {
+            if (j == waiting.size() || (i < stored.size()
+                    && stored.get(i).getRegistrationId().compareTo(waiting.get(j).getRegistrationId()) < 0)) {
+                page.add(stored.get(i++));
+            } else if (i < stored.size()
+                    && stored.get(i).getRegistrationId().equals(waiting.get(j).getRegistrationId())) {
+                // Applied while this page was being read
+                page.add(stored.get(i++));
+                j++;
+            } else {
+                page.add(waiting.get(j++));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEach(Consumer<Participant> action) throws SQLException {
+        drain();
+        target.forEach(action);
+    }
+
+    @Override
+    public int count() throws SQLException {
+        return target.count() + pending.size();
+    }
+
+    @Override
+    public int update(Participant p) throws SQLException {
+        settle(p.getRegistrationId());
+        return target.update(p);
+    }
+
+    @Override
+    public int delete(String registrationId) throws SQLException {
+        settle(registrationId);
+        return target.delete(registrationId);
+    }
+
+    /**
+     * Wait until every registration journaled so far is in the store and
+     * the journal's checkpoint says so on disk
+     *
+     * @throws SQLTimeoutException if that takes longer than a minute, as
+     *         when the database is down and the applier keeps retrying
+     */
+    public void drain() throws SQLException {
+        if (!drain(DRAIN_TIMEOUT_MS)) {
+            if (!applier.isAlive()) {
+                throw new SQLException("Journal applier has stopped");
+            }
+            throw new SQLTimeoutException("Journaled registrations could not be written to the database within " +
+                DRAIN_TIMEOUT_MS / 1000 + " s; try again later");
+        }
+        syncCheckpoint();
+    }
+
+    /**
+     * Get ready to change or delete a participant: wait for its
+     * registration to be applied if it is still pending, and make sure a
+     * replay after a crash cannot insert it again over the change
+     */
+    private void settle(String registrationId) throws SQLException {
+        if (pending.containsKey(registrationId)) {
+            drain();
+        } else {
+            syncCheckpoint();
+        }
+    }
+
+    private void syncCheckpoint() throws SQLException {
+        try {
+            journal.syncCheckpoint();
+        } catch (IOException e) {
+            throw new SQLException("Error writing registration journal: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wait up to {@code timeoutMillis} for the applier to catch up; false
+     * if it did not
+     */
+    private boolean drain(long timeoutMillis) throws SQLException {
+        long deadline = System.currentTimeMillis() + Math.min(timeoutMillis, Long.MAX_VALUE / 2);
+        synchronized (appliedLock) {
+            long wanted = enqueued;
+            while (applied < wanted) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (!applier.isAlive() || remaining <= 0) {
+                    return false;
+                }
+                try {
+                    appliedLock.wait(Math.min(remaining, 1000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the journal", e);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Apply what is left, then close the journal and the underlying store
+     *
+     * If the store cannot take the remaining registrations in time they
+     * stay in the journal and are replayed on the next start.
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!drain(RETRY_MAX_MS)) {
+                System.err.println(pending.size() + " registrations left in the journal for next start");
+            }
+        } finally {
+            closing = true;
+            applier.interrupt();
+            try {
+                applier.join(RETRY_MAX_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println("Registration journal: " + journal.getAppendCount() +
+                " registrations in " + journal.getSyncCount() + " fsyncs");
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Error closing registration journal: " + e.getMessage());
+            }
+            target.close();
+        }
+    }
+
+    private void enqueue(RegistrationJournal.Entry entry) {
+        pending.put(entry.getParticipant().getRegistrationId(), entry.getParticipant());
+        synchronized (appliedLock) {
+            enqueued++;
+            queue.add(entry);
+        }
+    }
+
+    /**
+     * Applier thread: move journaled registrations into the store in
+     * batches, retrying with backoff while the store is unavailable
+     */
+    private void applyLoop() {
+        List<RegistrationJournal.Entry> batch = new ArrayList<>(APPLY_BATCH_SIZE);
+        long retryDelay = RETRY_MIN_MS;
+        while (!closing) {
+            try {
+                if (batch.isEmpty()) {
+                    RegistrationJournal.Entry first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, APPLY_BATCH_SIZE - 1);
+                }
+
+                apply(batch);
+                journal.markApplied(batch.get(batch.size() - 1).getEnd());
+                synchronized (appliedLock) {
+                    applied += batch.size();
+                    appliedLock.notifyAll();
+                }
+                batch.clear();
+                retryDelay = RETRY_MIN_MS;
+            } catch (InterruptedException e) {
+                // Only interrupted by close()
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | IOException e) {
+                System.err.println("Error applying registration journal, retrying in " +
+                    retryDelay + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                retryDelay = Math.min(retryDelay * 2, RETRY_MAX_MS);
+            }
+        }
+    }
+
+    private void apply(List<RegistrationJournal.Entry> batch) throws SQLException {
+        List<Participant> rows = new ArrayList<>(batch.size());
+        for (RegistrationJournal.Entry entry : batch) {
+            rows.add(entry.getParticipant());
+        }
+
+        target.insertBatch(rows, (error, index) -> {
+            Participant p = rows.get(index);
+            try {
+                // Replayed after a crash but already applied last time
+                if (sameParticipant(p, target.findById(p.getRegistrationId()))) {
+                    return;
+                }
+            } catch (SQLException lookupError) {
+                error.addSuppressed(lookupError);
+            }
+            reject(p, error);
+        });
+
+        for (Participant p : rows) {
+            pending.remove(p.getRegistrationId(), p);
+        }
+    }
+
+    /**
+     * Record a journaled registration the store refused and tell the listener
+     */
+    private void reject(Participant p, SQLException error) {
+        System.err.println("Journaled registration " + p.getRegistrationId() +
+            " (" + p.getName() + ") could not be applied: " + error.getMessage());
+        String line = String.join("\t", LocalDateTime.now().toString(), p.getRegistrationId(),
+            p.getName(), p.getDepartment(), p.getDancingPartner(), p.getContactNumber(),
+            p.getEmailAddress(), String.valueOf(error.getMessage()).replaceAll("\\s+", " "))
+            + System.lineSeparator();
+        try {
+            Files.write(rejectedFile, line.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error writing " + rejectedFile + ": " + e.getMessage());
+        }
+        try {
+            rejectionListener.registrationRejected(p, error, rejectedFile);
+        } catch (RuntimeException e) {
+            System.err.println("Error reporting rejected registration: " + e);
+        }
+    }
+
+    private static boolean sameParticipant(Participant a, Participant b) {
+        return b != null
+            && Objects.equals(a.getRegistrationId(), b.getRegistrationId())
+            && Objects.equals(a.getName(), b.getName())
+            && Objects.equals(a.getDepartment(), b.getDepartment())
+            && Objects.equals(a.getDancingPartner(), b.getDancingPartner())
+            && Objects.equals(a.getContactNumber(), b.getContactNumber())
+            && Objects.equals(a.getEmailAddress(), b.getEmailAddress())
+            && Objects.equals(a.getImageHash(), b.getImageHash());
+    }
+}
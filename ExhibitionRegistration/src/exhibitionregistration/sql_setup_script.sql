@@ -14,7 +14,7 @@ CREATE TABLE Participants (
     DancingPartner TEXT(100),
     ContactNumber TEXT(20) NOT NULL,
     EmailAddress TEXT(100) NOT NULL,
-    UniversityIDImage OLEOBJECT
+    UniversityIDImageHash TEXT(64)
 );
 
 -- ============================================================================
@@ -74,6 +74,8 @@ SELECT COUNT(*) AS TotalParticipants FROM Participants;
 SELECT * FROM Participants ORDER BY RegistrationID;
 
 -- View participants by department
+-- (the application shows these counts live under Tools > Department Statistics
+-- without scanning the table)
 SELECT Department, COUNT(*) AS ParticipantCount 
 FROM Participants 
 GROUP BY Department 
@@ -197,10 +199,10 @@ GROUP BY RIGHT(EmailAddress, LEN(EmailAddress) - INSTR(EmailAddress, '@'));
 -- ============================================================================
 -- 1. Execute CREATE TABLE first (only once)
 -- 2. Execute each INSERT statement separately
--- 3. Images must be added manually through Access interface:
---    - Open table in Datasheet View
---    - Right-click UniversityIDImage field
---    - Insert Object → Create from File → Browse to image
+-- 3. Images are not stored in the table. The application saves each image
+--    in the idimages folder under its SHA-256 hash and keeps only the hash
+--    in UniversityIDImageHash. Older databases with a UniversityIDImage
+--    column are migrated automatically on first start.
 -- 4. Always backup database before running UPDATE or DELETE queries
 -- 5. Keep RegistrationID unique (Primary Key constraint enforces this)
 -- ============================================================================
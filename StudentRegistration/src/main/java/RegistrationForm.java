@@ -0,0 +1,692 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/GUIForms/JFrame.java to edit this template
+ */
+
+/**
+ *
+ * @author fred
+ */
+import java.io.*;
+// import java.sql.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Period;
+import java.time.YearMonth;
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+import uk.studentregistration.StudentAppender;
+import uk.studentregistration.StudentIdAllocator;
+import uk.studentregistration.StudentIndex;
+import uk.studentregistration.StudentRecord;
+import uk.studentregistration.StudentRegistryReader;
+
+public class RegistrationForm extends javax.swing.JFrame {
+
+    /**
+     * Creates new form RegistrationForm
+     */
+    public RegistrationForm() {
+        initComponents();
+        loadYears();
+        loadMonths();
+        setupRadioGroups();
+        loadStudentsFromCSV();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        jLabel1 = new javax.swing.JLabel();
+        jTextField1 = new javax.swing.JTextField();
+        jLabel2 = new javax.swing.JLabel();
+        jTextField2 = new javax.swing.JTextField();
+        jLabel3 = new javax.swing.JLabel();
+        jTextField3 = new javax.swing.JTextField();
+        jLabel4 = new javax.swing.JLabel();
+        jTextField4 = new javax.swing.JTextField();
+        jLabel5 = new javax.swing.JLabel();
+        jPasswordField1 = new javax.swing.JPasswordField();
+        jLabel6 = new javax.swing.JLabel();
+        jPasswordField2 = new javax.swing.JPasswordField();
+        jLabel7 = new javax.swing.JLabel();
+        jComboBox1 = new javax.swing.JComboBox<>();
+        jComboBox2 = new javax.swing.JComboBox<>();
+        jComboBox3 = new javax.swing.JComboBox<>();
+        jLabel8 = new javax.swing.JLabel();
+        jRadioButton3 = new javax.swing.JRadioButton();
+        jRadioButton4 = new javax.swing.JRadioButton();
+        jRadioButton5 = new javax.swing.JRadioButton();
+        jRadioButton6 = new javax.swing.JRadioButton();
+        jRadioButton7 = new javax.swing.JRadioButton();
+        jButton1 = new javax.swing.JButton();
+        jButton2 = new javax.swing.JButton();
+        jLabel9 = new javax.swing.JLabel();
+        jScrollPane1 = new javax.swing.JScrollPane();
+        jTextArea1 = new javax.swing.JTextArea();
+        jRadioButton8 = new javax.swing.JRadioButton();
+        jRadioButton1 = new javax.swing.JRadioButton();
+        jLabel10 = new javax.swing.JLabel();
+        jLabel11 = new javax.swing.JLabel();
+        jLabel12 = new javax.swing.JLabel();
+        jLabel13 = new javax.swing.JLabel();
+        jLabel14 = new javax.swing.JLabel();
+        jLabel15 = new javax.swing.JLabel();
+        jLabel16 = new javax.swing.JLabel();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.EXIT_ON_CLOSE);
+
+        jLabel1.setText("Student First Name ");
+
+        jTextField1.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel2.setText("Student Last Name");
+
+        jTextField2.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel3.setText("Email Address ");
+
+        jTextField3.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel4.setText("Confirm Email");
+
+        jTextField4.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel5.setText("Password ");
+
+        jPasswordField1.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel6.setText("Confirm Password ");
+
+        jPasswordField2.setForeground(new java.awt.Color(51, 51, 51));
+
+        jLabel7.setText("Date of Birth");
+
+        jComboBox1.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jComboBox1ActionPerformed(evt);
+            }
+        });
+
+        jComboBox2.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jComboBox2ActionPerformed(evt);
+            }
+        });
+
+        jLabel8.setText("Department");
+
+        jRadioButton3.setText("Civil");
+
+        jRadioButton4.setText("Computer Science and Engineering");
+
+        jRadioButton5.setText("Electrical");
+
+        jRadioButton6.setText("Electronics and Communication");
+
+        jRadioButton7.setText("Mechanical");
+
+        jButton1.setText("Submit");
+        jButton1.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jButton1ActionPerformed(evt);
+            }
+        });
+
+        jButton2.setText("Cancel");
+        jButton2.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jButton2ActionPerformed(evt);
+            }
+        });
+
+        jLabel9.setText("Your Data is Below");
+
+        jTextArea1.setEditable(false);
+        jTextArea1.setColumns(20);
+        jTextArea1.setRows(5);
+        jScrollPane1.setViewportView(jTextArea1);
+
+        jRadioButton8.setText("Male");
+
+        jRadioButton1.setText("Female");
+        jRadioButton1.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                jRadioButton1ActionPerformed(evt);
+            }
+        });
+
+        jLabel10.setText("New Student Registration Form");
+
+        jLabel11.setForeground(new java.awt.Color(255, 0, 0));
+
+        jLabel12.setForeground(new java.awt.Color(255, 0, 0));
+
+        jLabel13.setForeground(new java.awt.Color(255, 0, 0));
+
+        jLabel14.setForeground(new java.awt.Color(255, 0, 0));
+
+        jLabel15.setForeground(new java.awt.Color(255, 0, 0));
+
+        jLabel16.setForeground(new java.awt.Color(255, 0, 0));
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
+        getContentPane().setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addGroup(layout.createSequentialGroup()
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addComponent(jLabel6)
+                            .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                .addComponent(jLabel8, javax.swing.GroupLayout.Alignment.TRAILING, javax.swing.GroupLayout.PREFERRED_SIZE, 112, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                .addComponent(jLabel7, javax.swing.GroupLayout.PREFERRED_SIZE, 94, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addGroup(layout.createSequentialGroup()
+                                .addGap(71, 71, 71)
+                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                    .addGroup(layout.createSequentialGroup()
+                                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                            .addComponent(jRadioButton3)
+                                            .addComponent(jRadioButton5)
+                                            .addComponent(jRadioButton4)
+                                            .addGroup(layout.createSequentialGroup()
+                                                .addComponent(jRadioButton8)
+                                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                                                .addComponent(jRadioButton1)))
+                                        .addGap(18, 18, 18)
+                                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                            .addComponent(jLabel9, javax.swing.GroupLayout.PREFERRED_SIZE, 279, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                            .addComponent(jScrollPane1, javax.swing.GroupLayout.PREFERRED_SIZE, 342, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                                    .addComponent(jRadioButton6)
+                                    .addComponent(jRadioButton7)
+                                    .addGroup(layout.createSequentialGroup()
+                                        .addComponent(jComboBox1, javax.swing.GroupLayout.PREFERRED_SIZE, 128, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                        .addComponent(jComboBox2, javax.swing.GroupLayout.PREFERRED_SIZE, 101, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                        .addComponent(jComboBox3, javax.swing.GroupLayout.PREFERRED_SIZE, 152, javax.swing.GroupLayout.PREFERRED_SIZE))
+                                    .addGroup(layout.createSequentialGroup()
+                                        .addComponent(jButton1)
+                                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                                        .addComponent(jButton2)))
+                                .addGap(0, 0, Short.MAX_VALUE))
+                            .addGroup(layout.createSequentialGroup()
+                                .addGap(75, 75, 75)
+                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                    .addComponent(jPasswordField2)
+                                    .addGroup(layout.createSequentialGroup()
+                                        .addComponent(jLabel16, javax.swing.GroupLayout.PREFERRED_SIZE, 486, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                        .addGap(0, 0, Short.MAX_VALUE))))))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(222, 222, 222)
+                        .addComponent(jLabel10, javax.swing.GroupLayout.PREFERRED_SIZE, 198, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addGap(0, 0, Short.MAX_VALUE))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
+                                .addComponent(jLabel3, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(jLabel1, javax.swing.GroupLayout.DEFAULT_SIZE, 122, Short.MAX_VALUE)
+                                .addComponent(jLabel2))
+                            .addComponent(jLabel5)
+                            .addComponent(jLabel4))
+                        .addGap(65, 65, 65)
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                            .addComponent(jTextField1)
+                            .addComponent(jTextField2)
+                            .addComponent(jTextField3)
+                            .addComponent(jTextField4, javax.swing.GroupLayout.Alignment.TRAILING)
+                            .addComponent(jPasswordField1)
+                            .addComponent(jLabel11, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                            .addComponent(jLabel12, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                            .addComponent(jLabel13, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                            .addGroup(layout.createSequentialGroup()
+                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                                    .addComponent(jLabel14, javax.swing.GroupLayout.PREFERRED_SIZE, 482, javax.swing.GroupLayout.PREFERRED_SIZE)
+                                    .addComponent(jLabel15, javax.swing.GroupLayout.PREFERRED_SIZE, 483, javax.swing.GroupLayout.PREFERRED_SIZE))
+                                .addGap(0, 0, Short.MAX_VALUE)))))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addComponent(jLabel10)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel1)
+                    .addComponent(jTextField1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel11)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel2)
+                    .addComponent(jTextField2, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel12)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel3)
+                    .addComponent(jTextField3, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel13)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.TRAILING)
+                    .addComponent(jLabel4)
+                    .addComponent(jTextField4, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel14)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel5)
+                    .addComponent(jPasswordField1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel15)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel6)
+                    .addComponent(jPasswordField2, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(jLabel16)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(jLabel7)
+                    .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                        .addComponent(jComboBox1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addComponent(jComboBox2, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                        .addComponent(jComboBox3, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(26, 26, 26)
+                        .addComponent(jLabel8))
+                    .addGroup(layout.createSequentialGroup()
+                        .addGap(18, 18, 18)
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                            .addComponent(jLabel9)
+                            .addComponent(jRadioButton8)
+                            .addComponent(jRadioButton1))
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING, false)
+                            .addComponent(jScrollPane1)
+                            .addGroup(layout.createSequentialGroup()
+                                .addComponent(jRadioButton3)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(jRadioButton4)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(jRadioButton5)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(jRadioButton6)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addComponent(jRadioButton7)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                                    .addComponent(jButton1)
+                                    .addComponent(jButton2))
+                                .addGap(0, 0, Short.MAX_VALUE)))))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        jLabel11.getAccessibleContext().setAccessibleName("errFname");
+        jLabel12.getAccessibleContext().setAccessibleName("errLname");
+        jLabel13.getAccessibleContext().setAccessibleName("errEmail");
+        jLabel14.getAccessibleContext().setAccessibleName("errConfirmEmail");
+        jLabel15.getAccessibleContext().setAccessibleName("errPassword");
+        jLabel16.getAccessibleContext().setAccessibleName("errConfirmPassword");
+
+        pack();
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void jComboBox1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jComboBox1ActionPerformed
+        // TODO add your handling code here:
+        updateDays();
+    }//GEN-LAST:event_jComboBox1ActionPerformed
+
+    private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
+        // TODO add your handling code here:
+        
+    String fname = jTextField1.getText().trim().toUpperCase();
+    String lname = jTextField2.getText().trim().toUpperCase();
+    String email = jTextField3.getText().trim();
+    String confirmEmail = jTextField4.getText().trim();
+    
+    String password = new String(jPasswordField1.getPassword()).trim();
+    String confirmPassword = new String(jPasswordField2.getPassword()).trim();
+
+    if(fname.isEmpty() || lname.isEmpty() || email.isEmpty() || confirmEmail.isEmpty()
+            || password.isEmpty() || confirmPassword.isEmpty()) {
+        javax.swing.JOptionPane.showMessageDialog(this,"All fields required");
+        return;
+    }
+    
+    
+    if(!isValidEmail(email) || !email.equals(confirmEmail)) {
+        javax.swing.JOptionPane.showMessageDialog(this,"Invalid or mismatched email");
+        return;
+    }
+
+    if(!isValidPassword(password) || !password.equals(confirmPassword)) {
+        javax.swing.JOptionPane.showMessageDialog(this,"Password must be 8–20 chars, include letter & digit");
+        return;
+    }
+
+    if(jComboBox1.getSelectedItem()==null || jComboBox2.getSelectedItem()==null || jComboBox3.getSelectedItem()==null){
+        javax.swing.JOptionPane.showMessageDialog(this,"Select DOB");
+        return;
+    }
+    
+    int y = Integer.parseInt(jComboBox1.getSelectedItem().toString());
+    int m = Integer.parseInt(jComboBox2.getSelectedItem().toString());
+    int d = Integer.parseInt(jComboBox3.getSelectedItem().toString());
+
+    int age = calculateAge(y,m,d);
+
+    if(age < 16 || age > 60){
+        javax.swing.JOptionPane.showMessageDialog(this,"Age must be 16–60");
+        return;
+    }
+
+    if(!jRadioButton8.isSelected() && !jRadioButton1.isSelected()){
+        javax.swing.JOptionPane.showMessageDialog(this,"Select gender");
+        return;
+    }
+    
+    String gender = jRadioButton8.isSelected() ? "M" : "F";
+
+    String dept = "";
+    if(jRadioButton3.isSelected()) dept="Civil";
+    else if(jRadioButton4.isSelected()) dept="CSE";
+    else if(jRadioButton5.isSelected()) dept="Electrical";
+    else if(jRadioButton6.isSelected()) dept="Electronics";
+    else if(jRadioButton7.isSelected()) dept="Mechanical";
+    
+    if(dept.isEmpty()){
+        javax.swing.JOptionPane.showMessageDialog(this,"Select department");
+        return;
+    }
+    
+    try {
+        if (!studentIndex().findByEmail(email).isEmpty()) {
+            javax.swing.JOptionPane.showMessageDialog(this,"A student with this email is already registered");
+            return;
+        }
+        String id = generateId();
+        String dob = y + "-" + String.format("%02d", m) + "-" + String.format("%02d", d);
+        // String dob = String.format("%02d-%02d-%04d", d, m, y);
+        
+        
+        String record = 
+        "ID: " +  id + " | " +
+        fname + "  " + lname + " | " +
+        gender + " | " +
+        dept + " | " +
+        dob + " | " +
+        email;
+
+
+        jTextArea1.setText(record);
+//        try(FileWriter fw = new FileWriter("students.csv", true)){
+//    fw.write(record + System.lineSeparator());
+//}
+    
+    saveToCSV(id,fname,lname,gender,dept,dob,email);
+
+
+
+    javax.swing.JOptionPane.showMessageDialog(this,"Saved successfully!");
+
+    } catch(Exception ex){
+        javax.swing.JOptionPane.showMessageDialog(this, ex.getMessage());
+    }
+    
+        
+    }//GEN-LAST:event_jButton1ActionPerformed
+
+    private void jRadioButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jRadioButton1ActionPerformed
+        // TODO add your handling code here:
+    }//GEN-LAST:event_jRadioButton1ActionPerformed
+
+    private void jComboBox2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jComboBox2ActionPerformed
+        // TODO add your handling code here:
+        updateDays();
+    }//GEN-LAST:event_jComboBox2ActionPerformed
+
+    private void jButton2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton2ActionPerformed
+        // TODO add your handling code here:
+        jTextField1.setText("");
+jTextField2.setText("");
+jTextField3.setText("");
+jTextField4.setText("");
+
+jPasswordField1.setText("");
+jPasswordField2.setText("");
+
+jComboBox1.setSelectedIndex(0);
+jComboBox2.setSelectedIndex(0);
+updateDays();
+jComboBox3.setSelectedIndex(0);
+
+jRadioButton8.setSelected(false);
+jRadioButton1.setSelected(false);
+
+jRadioButton3.setSelected(false);
+jRadioButton4.setSelected(false);
+jRadioButton5.setSelected(false);
+jRadioButton6.setSelected(false);
+jRadioButton7.setSelected(false);
+
+jTextArea1.setText("");
+
+    }//GEN-LAST:event_jButton2ActionPerformed
+
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String args[]) {
+        /* Set the Nimbus look and feel */
+        //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
+        /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
+         * For details see http://download.oracle.com/javase/tutorial/uiswing/lookandfeel/plaf.html 
+         */
+        try {
+            for (javax.swing.UIManager.LookAndFeelInfo info : javax.swing.UIManager.getInstalledLookAndFeels()) {
+                if ("Nimbus".equals(info.getName())) {
+                    javax.swing.UIManager.setLookAndFeel(info.getClassName());
+                    break;
+                }
+            }
+        } catch (ClassNotFoundException ex) {
+            java.util.logging.Logger.getLogger(RegistrationForm.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (InstantiationException ex) {
+            java.util.logging.Logger.getLogger(RegistrationForm.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (IllegalAccessException ex) {
+            java.util.logging.Logger.getLogger(RegistrationForm.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+        } catch (javax.swing.UnsupportedLookAndFeelException ex) {
+            java.util.logging.Logger.getLogger(RegistrationForm.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+        }
+        //</editor-fold>
+
+        /* Create and display the form */
+        java.awt.EventQueue.invokeLater(new Runnable() {
+            public void run() {
+                new RegistrationForm().setVisible(true);
+            }
+        });
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton jButton1;
+    private javax.swing.JButton jButton2;
+    private javax.swing.JComboBox<String> jComboBox1;
+    private javax.swing.JComboBox<String> jComboBox2;
+    private javax.swing.JComboBox<String> jComboBox3;
+    private javax.swing.JLabel jLabel1;
+    private javax.swing.JLabel jLabel10;
+    private javax.swing.JLabel jLabel11;
+    private javax.swing.JLabel jLabel12;
+    private javax.swing.JLabel jLabel13;
+    private javax.swing.JLabel jLabel14;
+    private javax.swing.JLabel jLabel15;
+    private javax.swing.JLabel jLabel16;
+    private javax.swing.JLabel jLabel2;
+    private javax.swing.JLabel jLabel3;
+    private javax.swing.JLabel jLabel4;
+    private javax.swing.JLabel jLabel5;
+    private javax.swing.JLabel jLabel6;
+    private javax.swing.JLabel jLabel7;
+    private javax.swing.JLabel jLabel8;
+    private javax.swing.JLabel jLabel9;
+    private javax.swing.JPasswordField jPasswordField1;
+    private javax.swing.JPasswordField jPasswordField2;
+    private javax.swing.JRadioButton jRadioButton1;
+    private javax.swing.JRadioButton jRadioButton3;
+    private javax.swing.JRadioButton jRadioButton4;
+    private javax.swing.JRadioButton jRadioButton5;
+    private javax.swing.JRadioButton jRadioButton6;
+    private javax.swing.JRadioButton jRadioButton7;
+    private javax.swing.JRadioButton jRadioButton8;
+    private javax.swing.JScrollPane jScrollPane1;
+    private javax.swing.JTextArea jTextArea1;
+    private javax.swing.JTextField jTextField1;
+    private javax.swing.JTextField jTextField2;
+    private javax.swing.JTextField jTextField3;
+    private javax.swing.JTextField jTextField4;
+    // End of variables declaration//GEN-END:variables
+
+    // Opened on the first registration and kept for the life of the form
+    private StudentIdAllocator idAllocator;
+    private StudentIndex studentIndex;
+    private StudentAppender appender;
+
+    private void loadYears() {
+    jComboBox1.removeAllItems();
+    for(int i = 1966; i <= 2010; i++){
+        jComboBox1.addItem(String.valueOf(i));
+    }
+}
+
+private void loadMonths() {
+    jComboBox2.removeAllItems();
+    for(int i = 1; i <= 12; i++){
+        jComboBox2.addItem(String.valueOf(i));
+    }
+}
+
+private void updateDays() {
+
+    jComboBox3.removeAllItems();
+
+    if(jComboBox1.getSelectedItem()==null || jComboBox2.getSelectedItem()==null){
+        return;
+    }
+
+    int year = Integer.parseInt(jComboBox1.getSelectedItem().toString());
+    int month = Integer.parseInt(jComboBox2.getSelectedItem().toString());
+
+    YearMonth ym = YearMonth.of(year, month);
+    int days = ym.lengthOfMonth();
+
+    for(int i = 1; i <= days; i++){
+        jComboBox3.addItem(String.valueOf(i));
+    }
+}
+private void setupRadioGroups() {
+
+    javax.swing.ButtonGroup genderGroup = new javax.swing.ButtonGroup();
+    genderGroup.add(jRadioButton8); // Male
+    genderGroup.add(jRadioButton1); // Female
+
+    javax.swing.ButtonGroup departmentGroup = new javax.swing.ButtonGroup();
+    departmentGroup.add(jRadioButton3); // Civil
+    departmentGroup.add(jRadioButton4); // Computer Science
+    departmentGroup.add(jRadioButton5); // Electrical
+    departmentGroup.add(jRadioButton6); // Electronics
+    departmentGroup.add(jRadioButton7); // Mechanical
+}
+
+// validating emails
+private boolean isValidEmail(String email) {
+    return Pattern.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$", email);
+}
+
+// validating passwords
+private boolean isValidPassword(String pass) {
+    if(pass.length() < 8 || pass.length() > 20) return false;
+    boolean hasLetter = pass.matches(".*[A-Za-z].*");
+    boolean hasDigit = pass.matches(".*[0-9].*");
+    return hasLetter && hasDigit;
+}
+
+// validating age
+private int calculateAge(int y, int m, int d) {
+    LocalDate dob = LocalDate.of(y, m, d);
+    return Period.between(dob, LocalDate.now()).getYears();
+}
+
+//// generating student ID from the persistent per-year counter
+private String generateId() throws IOException {
+    if (idAllocator == null) {
+        idAllocator = StudentIdAllocator.open(Paths.get("students.seq"), Paths.get("students.csv"));
+    }
+    return idAllocator.nextId();
+}
+
+
+
+// ID and email lookups into students.csv without scanning it
+private StudentIndex studentIndex() throws IOException {
+    if (studentIndex == null) {
+        studentIndex = StudentIndex.open(Paths.get("students.csv"));
+    }
+    return studentIndex;
+}
+
+// loading informstion into CSV
+
+private void loadStudentsFromCSV() {
+    File file = new File("students.csv");
+    if (!file.exists()) {
+        // If the file doesn't exist yet, just return
+        return;
+    }
+
+    // The compacted registry, if there is one, plus rows registered since
+    StringBuilder sb = new StringBuilder();
+    try {
+        for (StudentRecord student : StudentRegistryReader.load(Paths.get("students.reg"), file.toPath())) {
+            sb.append(student.toDisplayString()).append("\n");
+        }
+    } catch (IOException e) {
+        javax.swing.JOptionPane.showMessageDialog(this, "Error loading CSV: " + e.getMessage());
+    }
+
+    // Display the loaded data in the text area
+    jTextArea1.setText(sb.toString());
+}
+
+
+private void saveToCSV(String id,String fname,String lname,
+        String gender,String dept,String dob,String email) throws IOException {
+
+    StudentRecord record = new StudentRecord(id, fname, lname, gender, dept, LocalDate.parse(dob), email);
+
+    // Returns once the line is on disk; concurrent desks share one fsync
+    if (appender == null) {
+        appender = new StudentAppender(Paths.get("students.csv"), StudentAppender.SyncPolicy.everyRecord());
+    }
+    appender.appendAndWait(record);
+}
+
+
+
+
+
+
+}
+
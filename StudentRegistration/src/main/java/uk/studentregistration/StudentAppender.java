@@ -0,0 +1,371 @@
+package uk.studentregistration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived appender that adds registrations to students.csv in batches
+ * through one FileChannel
+ *
+ * Callers queue records from any thread. A single writer thread drains
+ * everything queued so far and writes it with one write call on a channel
+ * opened for append, holding a FileLock so that another process appending
+ * at the same time cannot split a line. Each record is encoded in full
+ * before it is queued, so a batch only ever contains whole lines.
+ *
+ * When the data is forced to disk depends on the {@link SyncPolicy}. With
+ * {@link SyncPolicy#everyRecord()}, each record's future completes only
+ * after an fsync that covers it. One fsync covers the whole batch, so under
+ * load many registrations share a single disk flush (group commit). The
+ * other policies complete futures as soon as the batch is written and fsync
+ * on a timer or after a number of records.
+ *
+ * Use one appender per file in a JVM and share it between threads.
+ */
+public final class StudentAppender implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 1 << 16;
+
+    // Bytes gathered into one write call; larger batches take several
+    private static final int BATCH_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final BlockingQueue<Pending> queue;
+    private final Thread writer;
+    private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+    // Queued by close; like the markers queued by flush it carries no line
+    private final Pending closeMarker = new Pending(null);
+    private volatile boolean closed;
+
+    private long unsyncedRecords;
+    private long lastSyncNanos = System.nanoTime();
+
+    /**
+     * When appended data is forced to disk
+     */
+    public static final class SyncPolicy {
+        private final long everyRecords;
+        private final long everyNanos;
+
+        private SyncPolicy(long everyRecords, long everyNanos) {
+            this.everyRecords = everyRecords;
+            this.everyNanos = everyNanos;
+        }
+
+        /**
+         * fsync every batch, completing each record only once it is on disk
+         */
+        public static SyncPolicy everyRecord() {
+            return new SyncPolicy(1, 0);
+        }
+
+        /**
+         * fsync once at least {@code records} records have been written
+         * since the last one
+         */
+        public static SyncPolicy everyRecords(int records) {
+            if (records < 1) {
+                throw new IllegalArgumentException("records must be positive: " + records);
+            }
+            return new SyncPolicy(records, 0);
+        }
+
+        /**
+         * fsync at most {@code millis} milliseconds after data is written
+         */
+        public static SyncPolicy everyMillis(long millis) {
+            if (millis < 1) {
+                throw new IllegalArgumentException("millis must be positive: " + millis);
+            }
+            return new SyncPolicy(0, TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        /**
+         * Leave flushing to the operating system, except on close
+         */
+        public static SyncPolicy never() {
+            return new SyncPolicy(0, 0);
+        }
+
+        boolean isPerRecord() {
+            return everyRecords == 1;
+        }
+
+        @Override
+        public String toString() {
+            if (isPerRecord()) {
+                return "every record";
+            }
+            if (everyRecords > 0) {
+                return "every " + everyRecords + " records";
+            }
+            if (everyNanos > 0) {
+                return "every " + TimeUnit.NANOSECONDS.toMillis(everyNanos) + " ms";
+            }
+            return "never";
+        }
+    }
+
+    /**
+     * One queued line and the future of its write
+     */
+    private static final class Pending {
+        final byte[] line;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * Open {@code file} for appending, creating it if needed
+     */
+    public StudentAppender(Path file, SyncPolicy policy) throws IOException {
+        this(file, policy, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Open {@code file} for appending with room for {@code queueCapacity}
+     * records waiting to be written; further appends block
+     */
+    public StudentAppender(Path file, SyncPolicy policy, int queueCapacity) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.policy = policy;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::run, "student-appender");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue a record as one canonical CSV line
+     *
+     * The future completes when the line is written, and for
+     * {@link SyncPolicy#everyRecord()} when it is also on disk, or
+     * completes exceptionally if the write failed.
+     */
+    public CompletableFuture<Void> append(StudentRecord student) throws IOException {
+        return append(student.toCsvLine());
+    }
+
+    /**
+     * Queue one line of text; a line separator is added
+     */
+    public CompletableFuture<Void> append(String line) throws IOException {
+        if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Line contains a line break: " + line);
+        }
+        return enqueue(new Pending((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Queue a record and wait until it is written as the policy requires
+     */
+    public void appendAndWait(StudentRecord student) throws IOException {
+        await(append(student));
+    }
+
+    /**
+     * Wait until everything queued so far is written and forced to disk
+     */
+    public void flush() throws IOException {
+        await(enqueue(new Pending(null)));
+    }
+
+    /**
+     * Write what is queued, force it to disk and close the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            enqueue(closeMarker);
+            closed = true;
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the student appender");
+        } finally {
+            channel.close();
+        }
+        await(closeMarker.done);
+    }
+
+    public SyncPolicy getPolicy() {
+        return policy;
+    }
+
+    private CompletableFuture<Void> enqueue(Pending pending) throws IOException {
+        if (closed) {
+            throw new IOException("Student appender is closed");
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing a registration");
+        }
+        return pending.done;
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a registration to be written");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Registration write failed", e.getCause());
+        }
+    }
+
+    /**
+     * Writer thread: take everything queued, write it as one batch, then
+     * fsync if the policy asks and complete the futures
+     */
+    private void run() {
+        List<Pending> taken = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                Pending first = policy.everyNanos > 0 && unsyncedRecords > 0
+                    ? queue.poll(Math.max(0, lastSyncNanos + policy.everyNanos - System.nanoTime()),
+                        TimeUnit.NANOSECONDS)
+                    : queue.take();
+                if (first != null) {
+                    taken.add(first);
+                    queue.drainTo(taken);
+                }
+            } catch (InterruptedException e) {
+                // Only close stops the writer
+                continue;
+            }
+
+            boolean forceNow = false;
+            int records = 0;
+            for (Pending p : taken) {
+                if (p == closeMarker) {
+                    stopping = true;
+                    forceNow = true;
+                } else if (p.line == null) {
+                    forceNow = true;
+                } else {
+                    records++;
+                }
+            }
+
+            IOException failure = null;
+            try {
+                write(taken);
+                unsyncedRecords += records;
+                long now = System.nanoTime();
+                if (forceNow || unsyncedRecords > 0 && (policy.isPerRecord()
+                        || policy.everyRecords > 0 && unsyncedRecords >= policy.everyRecords
+                        || policy.everyNanos > 0 && now - lastSyncNanos >= policy.everyNanos)) {
+                    channel.force(false);
+                    unsyncedRecords = 0;
+                    lastSyncNanos = now;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            for (Pending p : taken) {
+                if (failure == null) {
+                    p.done.complete(null);
+                } else {
+                    p.done.completeExceptionally(failure);
+                }
+            }
+            taken.clear();
+        }
+
+        // Appends that raced with close
+        IOException closedError = new IOException("Student appender is closed");
+        for (Pending p; (p = queue.poll()) != null; ) {
+            p.done.completeExceptionally(closedError);
+        }
+    }
+
+    /**
+     * Write the lines of a batch in as few calls as the buffer allows,
+     * holding the file lock throughout
+     *
+     * If a write fails the file is cut back to where the batch started
+     * before the lock is released, so no other writer appends after a
+     * partial line.
+     */
+    private void write(List<Pending> taken) throws IOException {
+        if (taken.stream().allMatch(p -> p.line == null)) {
+            return;
+        }
+        FileLock lock = channel.lock();
+        try {
+            long start = channel.size();
+            try {
+                writeBatch(taken);
+            } catch (IOException e) {
+                try {
+                    channel.truncate(start);
+                } catch (IOException truncateFailure) {
+                    e.addSuppressed(truncateFailure);
+                }
+                throw e;
+            }
+        } finally {
+            if (lock.isValid()) {
+                lock.release();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> taken) throws IOException {
+        batch.clear();
+        for (Pending p : taken) {
+            if (p.line == null) {
+                continue;
+            }
+            if (p.line.length > batch.remaining()) {
+                drain();
+            }
+            if (p.line.length > batch.capacity()) {
+                writeFully(ByteBuffer.wrap(p.line));
+            } else {
+                batch.put(p.line);
+            }
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        batch.flip();
+        writeFully(batch);
+        batch.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
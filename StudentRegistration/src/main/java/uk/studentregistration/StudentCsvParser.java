@@ -0,0 +1,631 @@
+package uk.studentregistration;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Parser for students.csv in every shape the registration form has written
+ *
+ * Three row formats occur in the same file:
+ * <pre>
+ * ID: 2026-00004 | HELLO  WORLD | M | Civil | 1966-05-05 | world@gmail.com,,,,,,
+ * 2026-00008,OTI,ISAAC,M,Electrical,06/06/1972,oti@gmail.com
+ * ID:2026-00017,DONALD,TRUMP,M,Mechanical,05/05/1970,ice@gmail.com
+ * </pre>
+ * After the optional "ID:" prefix, a row is pipe-delimited if a '|' comes
+ * before the first ',' and comma-delimited otherwise. Dates are accepted as
+ * y-M-d, d-M-y or d/M/y, with or without zero padding; the year is
+ * whichever end has four digits.
+ *
+ * The file is memory-mapped and parsed as bytes. Each line is copied once
+ * into a scratch buffer, fields are located by offset, and only the final
+ * values become Strings. Files larger than {@link #MIN_SLICE_BYTES} are cut
+ * at line boundaries into up to one slice per core, and the slices are
+ * parsed in parallel and concatenated in file order.
+ */
+public final class StudentCsvParser {
+
+    /**
+     * Smallest slice worth handing to its own thread
+     */
+    public static final long MIN_SLICE_BYTES = 1 << 20;
+
+    // Largest region mapped at once; a slice bigger than this is mapped in windows
+    private static final long MAP_WINDOW = 1 << 28;
+
+    private static final int MAX_FIELDS = 7;
+
+    // Bytes before a covered boundary that boundaryCrc checksums
+    private static final int BOUNDARY_BYTES = 4096;
+
+    /**
+     * A line that could not be parsed
+     */
+    public static final class Rejection {
+        private final long line;
+        private final long offset;
+        private final String text;
+        private final String reason;
+
+        Rejection(long line, long offset, String text, String reason) {
+            this.line = line;
+            this.offset = offset;
+            this.text = text;
+            this.reason = reason;
+        }
+
+        /**
+         * 1-based line number in the file
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Byte offset of the start of the line
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason + ": " + text;
+        }
+    }
+
+    /**
+     * Receives each parsed line in file order
+     */
+    interface LineSink {
+        void record(StudentRecord record, long offset, int length);
+
+        void rejected(Rejection rejection);
+    }
+
+    private StudentCsvParser() {
+    }
+
+    /**
+     * Parse every record in the file, skipping lines that cannot be parsed
+     */
+    public static List<StudentRecord> readAll(Path file) throws IOException {
+        return readAll(file, rejection -> { });
+    }
+
+    /**
+     * Parse every record in the file, in file order, using one thread per
+     * slice of at least {@link #MIN_SLICE_BYTES}
+     *
+     * Lines that cannot be parsed are passed to {@code onRejected} on the
+     * calling thread, in file order, after all slices are done.
+     */
+    public static List<StudentRecord> readAll(Path file, Consumer<Rejection> onRejected)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int cores = Runtime.getRuntime().availableProcessors();
+            int slices = (int) Math.max(1, Math.min(cores, size / MIN_SLICE_BYTES));
+            if (slices == 1) {
+                Slice only = new Slice();
+                only.lines = scan(channel, 0, size, only);
+                only.rejections.forEach(onRejected);
+                return only.records;
+            }
+
+            long[] bounds = new long[slices + 1];
+            bounds[slices] = size;
+            for (int i = 1; i < slices; i++) {
+                bounds[i] = nextLineStart(channel, Math.max(bounds[i - 1], size / slices * i), size);
+            }
+
+            List<Future<Slice>> futures = new ArrayList<>(slices);
+            try (ExecutorService workers = Executors.newFixedThreadPool(slices)) {
+                for (int i = 0; i < slices; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    futures.add(workers.submit(() -> {
+                        Slice slice = new Slice();
+                        slice.lines = scan(channel, start, end, slice);
+                        return slice;
+                    }));
+                }
+
+                List<StudentRecord> records = null;
+                long linesBefore = 0;
+                for (Future<Slice> future : futures) {
+                    Slice slice = future.get();
+                    if (records == null) {
+                        records = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8,
+                            (long) slice.records.size() * slices));
+                    }
+                    records.addAll(slice.records);
+                    for (Rejection r : slice.rejections) {
+                        onRejected.accept(new Rejection(r.line + linesBefore, r.offset, r.text, r.reason));
+                    }
+                    linesBefore += slice.lines;
+                }
+                return records;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while parsing " + file);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Failed to parse " + file, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stream every record in the file to {@code action} on the calling
+     * thread, without holding the file in memory
+     */
+    public static void forEach(Path file, Consumer<StudentRecord> action,
+            Consumer<Rejection> onRejected) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, 0, channel.size(), new LineSink() {
+                @Override
+                public void record(StudentRecord record, long offset, int length) {
+                    action.accept(record);
+                }
+
+                @Override
+                public void rejected(Rejection rejection) {
+                    onRejected.accept(rejection);
+                }
+            });
+        }
+    }
+
+    /**
+     * Parse a single row in any of the supported formats, returning null
+     * for a blank line
+     *
+     * @throws IllegalArgumentException if the row cannot be parsed
+     */
+    public static StudentRecord parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        LineParser parser = new LineParser();
+        StudentRecord record = parser.parse(bytes, bytes.length);
+        if (record == null && parser.reason != null) {
+            throw new IllegalArgumentException(parser.reason);
+        }
+        return record;
+    }
+
+    /**
+     * Parse the lines in [start, end) of the file, which must begin at a
+     * line start, passing each to {@code sink}; returns the number of lines
+     */
+    static long scan(FileChannel channel, long start, long end, LineSink sink) throws IOException {
+        LineParser parser = new LineParser();
+        long line = 0;
+        long windowStart = start;
+        while (windowStart < end) {
+            long windowEnd = Math.min(end, windowStart + MAP_WINDOW);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                windowStart, windowEnd - windowStart);
+            int limit = buffer.limit();
+            boolean last = windowEnd == end;
+            int lineStart = 0;
+            for (int i = 0; i <= limit; i++) {
+                if (i < limit ? buffer.get(i) != '\n' : !last || lineStart == limit) {
+                    continue;
+                }
+                line++;
+                int length = i - lineStart;
+                long offset = windowStart + lineStart;
+                byte[] bytes = parser.scratch(length);
+                buffer.get(lineStart, bytes, 0, length);
+                int from = offset == 0 ? skipByteOrderMark(bytes, length) : 0;
+                StudentRecord record = parser.parse(bytes, from, length);
+                if (record != null) {
+                    sink.record(record, offset, length);
+                } else if (parser.reason != null) {
+                    String text = new String(bytes, 0, length, StandardCharsets.UTF_8).strip();
+                    sink.rejected(new Rejection(line, offset, text, parser.reason));
+                }
+                lineStart = i + 1;
+            }
+            if (last) {
+                return line;
+            }
+            if (lineStart == 0) {
+                throw new IOException("Line longer than " + MAP_WINDOW + " bytes at offset " + windowStart);
+            }
+            windowStart += lineStart;
+        }
+        return line;
+    }
+
+    static int skipByteOrderMark(byte[] b, int length) {
+        return length >= 3 && b[0] == (byte) 0xEF && b[1] == (byte) 0xBB && b[2] == (byte) 0xBF ? 3 : 0;
+    }
+
+    /**
+     * Offset just past the last newline in [from, size), or {@code from}
+     * if a line is still being written there
+     */
+    static long lastLineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = size;
+        while (position > from) {
+            int n = (int) Math.min(buffer.capacity(), position - from);
+            buffer.clear().limit(n);
+            long start = position - n;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            position = start;
+        }
+        return from;
+    }
+
+    /**
+     * CRC32 of the bytes just before {@code end}, used by files derived
+     * from students.csv to tell an appended file from a rewritten one
+     */
+    static long boundaryCrc(FileChannel channel, long end) throws IOException {
+        if (end == 0) {
+            return 0;
+        }
+        int n = (int) Math.min(BOUNDARY_BYTES, end);
+        ByteBuffer buffer = ByteBuffer.allocate(n);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, end - n + buffer.position()) < 0) {
+                return -1;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * Offset just after the first newline at or after {@code position}, or
+     * {@code size} if there is none
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /**
+     * Records and rejections of one slice, with line numbers relative to
+     * the slice
+     */
+    private static final class Slice implements LineSink {
+        final ArrayList<StudentRecord> records = new ArrayList<>();
+        final List<Rejection> rejections = new ArrayList<>();
+        long lines;
+
+        @Override
+        public void record(StudentRecord record, long offset, int length) {
+            records.add(record);
+        }
+
+        @Override
+        public void rejected(Rejection rejection) {
+            rejections.add(rejection);
+        }
+    }
+
+    /**
+     * Field splitter for one line held as bytes; not thread-safe, each
+     * slice uses its own
+     */
+    static final class LineParser {
+        private byte[] scratch = new byte[256];
+        private final int[] starts = new int[MAX_FIELDS];
+        private final int[] ends = new int[MAX_FIELDS];
+        private final int[] dateValues = new int[3];
+        private final int[] dateDigits = new int[3];
+
+        // Charset for the current line: Latin-1 is a plain copy and is exact for ASCII
+        private Charset charset;
+
+        /**
+         * Why the last {@link #parse} returned null, or null for a blank line
+         */
+        String reason;
+
+        byte[] scratch(int length) {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            return scratch;
+        }
+
+        StudentRecord parse(byte[] b, int length) {
+            return parse(b, 0, length);
+        }
+
+        /**
+         * Parse the row in b[from, length), returning null and setting
+         * {@link #reason} if it is not a valid record
+         */
+        StudentRecord parse(byte[] b, int from, int length) {
+            reason = null;
+            int pos = from;
+            int n = length;
+            // Trailing CR, blanks and the ",,,,,," padding older versions appended
+            while (n > pos && (b[n - 1] == ',' || isBlank(b[n - 1]))) {
+                n--;
+            }
+            while (pos < n && isBlank(b[pos])) {
+                pos++;
+            }
+            if (pos == n) {
+                return null;
+            }
+            if (n - pos >= 3 && b[pos] == 'I' && b[pos + 1] == 'D' && b[pos + 2] == ':') {
+                pos += 3;
+            }
+
+            byte delimiter = ',';
+            for (int i = pos; i < n; i++) {
+                if (b[i] == '|') {
+                    delimiter = '|';
+                    break;
+                }
+                if (b[i] == ',') {
+                    break;
+                }
+            }
+
+            int fields = split(b, pos, n, delimiter);
+            String firstName;
+            String lastName;
+            int g;
+            if (delimiter == '|') {
+                if (fields != 6) {
+                    return reject("Expected 6 '|' separated fields but found " + fields);
+                }
+                int nameStart = starts[1];
+                int nameEnd = ends[1];
+                int cut = nameBreak(b, nameStart, nameEnd);
+                if (cut < 0) {
+                    firstName = text(b, nameStart, nameEnd);
+                    lastName = "";
+                } else {
+                    firstName = text(b, nameStart, trimEnd(b, nameStart, cut));
+                    lastName = text(b, trimStart(b, cut, nameEnd), nameEnd);
+                }
+                g = 2;
+            } else {
+                if (fields != 7) {
+                    return reject("Expected 7 ',' separated fields but found " + fields);
+                }
+                firstName = text(b, starts[1], ends[1]);
+                lastName = text(b, starts[2], ends[2]);
+                g = 3;
+            }
+
+            if (starts[0] == ends[0]) {
+                return reject("Missing ID");
+            }
+            if (firstName.isEmpty()) {
+                return reject("Missing name");
+            }
+            String gender = gender(b, starts[g], ends[g]);
+            if (gender == null) {
+                return reject("Unknown gender");
+            }
+            if (starts[g + 1] == ends[g + 1]) {
+                return reject("Missing department");
+            }
+            LocalDate dateOfBirth = date(b, starts[g + 2], ends[g + 2]);
+            if (dateOfBirth == null) {
+                return reject("Unrecognised date of birth");
+            }
+            if (starts[g + 3] == ends[g + 3]) {
+                return reject("Missing email");
+            }
+            return new StudentRecord(text(b, starts[0], ends[0]), firstName, lastName, gender,
+                department(b, starts[g + 1], ends[g + 1]), dateOfBirth,
+                text(b, starts[g + 3], ends[g + 3]));
+        }
+
+        private StudentRecord reject(String why) {
+            reason = why;
+            return null;
+        }
+
+        /**
+         * Record the trimmed bounds of each field in b[pos, n), returning the
+         * number of fields found (which may exceed the number stored)
+         */
+        private int split(byte[] b, int pos, int n, byte delimiter) {
+            int count = 0;
+            int fieldStart = pos;
+            int bits = 0;
+            for (int i = pos; i <= n; i++) {
+                if (i < n && b[i] != delimiter) {
+                    bits |= b[i];
+                    continue;
+                }
+                if (count < MAX_FIELDS) {
+                    int s = trimStart(b, fieldStart, i);
+                    starts[count] = s;
+                    ends[count] = trimEnd(b, s, i);
+                }
+                count++;
+                fieldStart = i + 1;
+            }
+            charset = bits < 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+            return count;
+        }
+
+        /**
+         * Space or control character; bytes of multi-byte UTF-8 sequences
+         * are negative and never blank
+         */
+        private static boolean isBlank(byte c) {
+            return c >= 0 && c <= ' ';
+        }
+
+        private static int trimStart(byte[] b, int s, int e) {
+            while (s < e && isBlank(b[s])) {
+                s++;
+            }
+            return s;
+        }
+
+        private static int trimEnd(byte[] b, int s, int e) {
+            while (e > s && isBlank(b[e - 1])) {
+                e--;
+            }
+            return e;
+        }
+
+        /**
+         * Where a combined "FIRST  LAST" name splits: the double space the
+         * form writes if there is one, otherwise the last space, or -1
+         */
+        private static int nameBreak(byte[] b, int s, int e) {
+            int lastSpace = -1;
+            for (int i = s; i < e; i++) {
+                if (b[i] == ' ') {
+                    if (i + 1 < e && b[i + 1] == ' ') {
+                        return i;
+                    }
+                    lastSpace = i;
+                }
+            }
+            return lastSpace;
+        }
+
+        private static String gender(byte[] b, int s, int e) {
+            if (s == e) {
+                return null;
+            }
+            switch (b[s] | 0x20) {
+                case 'm':
+                    return "M";
+                case 'f':
+                    return "F";
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * The department, shared with {@link StudentRecord#DEPARTMENTS} when
+         * it is one of the form's
+         */
+        private String department(byte[] b, int s, int e) {
+            for (String known : StudentRecord.DEPARTMENTS) {
+                if (equalsIgnoreCase(b, s, e, known)) {
+                    return known;
+                }
+            }
+            return text(b, s, e);
+        }
+
+        private static boolean equalsIgnoreCase(byte[] b, int s, int e, String ascii) {
+            if (e - s != ascii.length()) {
+                return false;
+            }
+            for (int i = 0; i < ascii.length(); i++) {
+                if ((b[s + i] | 0x20) != (ascii.charAt(i) | 0x20)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Parse y-M-d, d-M-y or d/M/y, or null if the field is none of them
+         */
+        private LocalDate date(byte[] b, int s, int e) {
+            int[] value = dateValues;
+            int[] digits = dateDigits;
+            for (int i = 0; i < 3; i++) {
+                value[i] = 0;
+                digits[i] = 0;
+            }
+            int part = 0;
+            byte separator = 0;
+            for (int i = s; i < e; i++) {
+                byte c = b[i];
+                if (c >= '0' && c <= '9') {
+                    if (++digits[part] > 4) {
+                        return null;
+                    }
+                    value[part] = value[part] * 10 + (c - '0');
+                } else if ((c == '-' || c == '/') && part < 2 && digits[part] > 0
+                        && (separator == 0 || separator == c)) {
+                    separator = c;
+                    part++;
+                } else {
+                    return null;
+                }
+            }
+            if (part != 2 || digits[2] == 0) {
+                return null;
+            }
+            try {
+                if (digits[0] == 4 && digits[1] <= 2 && digits[2] <= 2) {
+                    return LocalDate.of(value[0], value[1], value[2]);
+                }
+                if (digits[2] == 4 && digits[0] <= 2 && digits[1] <= 2) {
+                    return LocalDate.of(value[2], value[1], value[0]);
+                }
+            } catch (DateTimeException ex) {
+                // Falls through to null, e.g. 31-02-2000
+            }
+            return null;
+        }
+
+        private String text(byte[] b, int s, int e) {
+            return new String(b, s, e - s, charset);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package uk.studentregistration;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent allocator for student IDs of the form {@code <year>-<sequence>},
+ * e.g. 2026-00020
+ *
+ * The next sequence number of each year is kept in a small counter file
+ * that is memory-mapped once. Handing out an ID is a read and a write of one
+ * slot while holding a {@link FileLock} on the file, so it costs the same
+ * however large students.csv grows. Several processes can allocate from the
+ * same file without collisions. Within one JVM, open only one allocator per
+ * counter file and share it between threads.
+ *
+ * The counter lives in the shared page cache, so a crashed process loses
+ * nothing. {@link #close} forces it to disk. If the counter file is missing,
+ * it is created and seeded from the highest ID of each year already in
+ * students.csv.
+ *
+ * Bulk loads can {@link #reserve} a block of IDs with one locked update and
+ * hand them out without touching the file again. Any IDs left over in a block
+ * become unused gaps.
+ */
+public final class StudentIdAllocator implements AutoCloseable {
+
+    private static final int MAGIC = 0x53494431; // "SID1"
+    private static final int VERSION = 1;
+
+    // Header: magic, version; then one slot per year: year, unused, next sequence
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 16;
+    private static final int SLOT_COUNT = 64;
+    private static final int FILE_SIZE = HEADER_SIZE + SLOT_SIZE * SLOT_COUNT;
+
+    private static final int SEQUENCE_DIGITS = 5;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer counters;
+    private final Clock clock;
+
+    /**
+     * A run of consecutive IDs reserved for one caller; not thread-safe
+     */
+    public static final class IdBlock {
+        private final int year;
+        private long next;
+        private final long end;
+
+        IdBlock(int year, long first, int count) {
+            this.year = year;
+            this.next = first;
+            this.end = first + count;
+        }
+
+        public int getYear() {
+            return year;
+        }
+
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        /**
+         * Number of IDs not yet handed out
+         */
+        public int remaining() {
+            return (int) (end - next);
+        }
+
+        /**
+         * The next ID of the block
+         *
+         * @throws NoSuchElementException if the block is used up
+         */
+        public String next() {
+            if (next >= end) {
+                throw new NoSuchElementException("ID block exhausted");
+            }
+            return format(year, next++);
+        }
+    }
+
+    private StudentIdAllocator(FileChannel channel, MappedByteBuffer counters, Clock clock) {
+        this.channel = channel;
+        this.counters = counters;
+        this.clock = clock;
+    }
+
+    /**
+     * Open the counter file, creating it and seeding it from
+     * {@code registry} if it does not exist yet
+     */
+    public static StudentIdAllocator open(Path counterFile, Path registry) throws IOException {
+        return open(counterFile, registry, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Open the counter file, taking the current year from {@code clock}
+     */
+    public static StudentIdAllocator open(Path counterFile, Path registry, Clock clock)
+            throws IOException {
+        FileChannel channel = FileChannel.open(counterFile, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer counters = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            FileLock lock = channel.lock();
+            try {
+                if (counters.getInt(0) != MAGIC) {
+                    seed(counters, registry);
+                    counters.putInt(4, VERSION);
+                    counters.putInt(0, MAGIC);
+                    counters.force();
+                } else if (counters.getInt(4) != VERSION) {
+                    throw new IOException("Unsupported ID counter file version " +
+                        counters.getInt(4) + " in " + counterFile);
+                }
+            } finally {
+                lock.release();
+            }
+            return new StudentIdAllocator(channel, counters, clock);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Allocate the next ID of the current year
+     */
+    public String nextId() throws IOException {
+        return nextId(LocalDate.now(clock).getYear());
+    }
+
+    /**
+     * Allocate the next ID of {@code year}
+     */
+    public String nextId(int year) throws IOException {
+        return format(year, allocate(year, 1));
+    }
+
+    /**
+     * Reserve {@code count} consecutive IDs of the current year
+     */
+    public IdBlock reserve(int count) throws IOException {
+        return reserve(LocalDate.now(clock).getYear(), count);
+    }
+
+    /**
+     * Reserve {@code count} consecutive IDs of {@code year}
+     */
+    public IdBlock reserve(int year, int count) throws IOException {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return new IdBlock(year, allocate(year, count), count);
+    }
+
+    /**
+     * Force the counters to disk and release the file
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            counters.force();
+        }
+        channel.close();
+    }
+
+    /**
+     * Advance the year's counter by {@code count}, returning the first
+     * sequence number of the range
+     *
+     * The monitor serializes threads of this JVM, since a FileLock is held
+     * per process and cannot be taken twice; the FileLock serializes
+     * processes.
+     */
+    private synchronized long allocate(int year, int count) throws IOException {
+        if (year < 1 || year > 9999) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+        FileLock lock = channel.lock(0, FILE_SIZE, false);
+        try {
+            int slot = slotOffset(year);
+            int slotYear = counters.getInt(slot);
+            long next;
+            if (slotYear == year) {
+                next = counters.getLong(slot + 8);
+            } else if (slotYear < year) {
+                // First ID of a new year, or a slot last used SLOT_COUNT years ago
+                counters.putInt(slot, year);
+                next = 1;
+            } else {
+                throw new IllegalArgumentException("Year " + year + " is too old to allocate IDs for");
+            }
+            counters.putLong(slot + 8, next + count);
+            return next;
+        } finally {
+            lock.release();
+        }
+    }
+
+    private static int slotOffset(int year) {
+        return HEADER_SIZE + (year % SLOT_COUNT) * SLOT_SIZE;
+    }
+
+    /**
+     * Set each year's counter to one past the highest ID already in the
+     * registry, so that IDs issued before the counter existed are not
+     * handed out again
+     */
+    private static void seed(MappedByteBuffer counters, Path registry) throws IOException {
+        for (int i = 0; i < FILE_SIZE; i++) {
+            counters.put(i, (byte) 0);
+        }
+        if (registry == null || !Files.exists(registry)) {
+            return;
+        }
+        Map<Integer, Long> highest = new HashMap<>();
+        StudentCsvParser.forEach(registry, student -> {
+            String id = student.getId();
+            int dash = id.indexOf('-');
+            if (dash <= 0) {
+                return;
+            }
+            int year = parseDigits(id, 0, dash);
+            long sequence = parseDigits(id, dash + 1, id.length());
+            if (year > 0 && year <= 9999 && sequence > 0) {
+                highest.merge(year, sequence, Math::max);
+            }
+        }, rejection -> { });
+        for (Map.Entry<Integer, Long> e : highest.entrySet()) {
+            int slot = slotOffset(e.getKey());
+            if (counters.getInt(slot) <= e.getKey()) {
+                counters.putInt(slot, e.getKey());
+                counters.putLong(slot + 8, e.getValue() + 1);
+            }
+        }
+    }
+
+    /**
+     * The decimal number in s[from, to), or -1 if it is not one
+     */
+    private static int parseDigits(String s, int from, int to) {
+        if (from >= to || to - from > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String format(int year, long sequence) {
+        String digits = Long.toString(sequence);
+        StringBuilder id = new StringBuilder(5 + Math.max(SEQUENCE_DIGITS, digits.length()));
+        id.append(year).append('-');
+        for (int i = digits.length(); i < SEQUENCE_DIGITS; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+}
@@ -0,0 +1,426 @@
+package uk.studentregistration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Sidecar index from student ID and email to the byte offset of each
+ * matching row in students.csv
+ *
+ * The index is an open-addressing hash table in {@code <csv>.idx}, memory-
+ * mapped, with one (key hash, row offset) slot per key. A lookup probes the
+ * table, reads only the rows it points at and re-checks the key, so hash
+ * collisions never give a wrong answer. Rows that were registered twice
+ * come back in file order.
+ *
+ * The header records how many bytes of the CSV are covered. Each lookup
+ * checks the file size. If the file has grown, only the new complete lines
+ * are parsed and added. If it has shrunk, been replaced, or no longer ends
+ * with the bytes the index was built against, the index is rebuilt from
+ * scratch.
+ *
+ * The index belongs to the process that appends to the CSV. Another
+ * process that opens it catches up with the file at that point.
+ */
+public final class StudentIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x53495831; // "SIX1"
+    private static final int VERSION = 1;
+
+    // Header: magic, version, capacity, unused, entry count, covered bytes, boundary CRC
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final int MIN_CAPACITY = 1 << 10;
+    // Largest table one mapping can hold
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private static final long ID_SEED = 0x9E3779B97F4A7C15L;
+    private static final long EMAIL_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final Path csvFile;
+    private final Path indexFile;
+    private final StudentCsvParser.LineParser parser = new StudentCsvParser.LineParser();
+    private ByteBuffer rowBuffer = ByteBuffer.allocate(512);
+
+    private FileChannel csv;
+    private Object csvKey;
+    private FileChannel channel;
+    private MappedByteBuffer table;
+    private int capacity;
+    private long count;
+    private long covered;
+
+    private StudentIndex(Path csvFile, Path indexFile) {
+        this.csvFile = csvFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Open the index beside {@code csvFile}, building it if it is missing
+     * and catching up with rows appended since it was last used
+     */
+    public static StudentIndex open(Path csvFile) throws IOException {
+        return open(csvFile, csvFile.resolveSibling(csvFile.getFileName() + ".idx"));
+    }
+
+    /**
+     * Open the index stored in {@code indexFile}
+     */
+    public static StudentIndex open(Path csvFile, Path indexFile) throws IOException {
+        StudentIndex index = new StudentIndex(csvFile, indexFile);
+        try {
+            index.load();
+            index.refresh();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Every row registered with this ID, in file order
+     */
+    public synchronized List<StudentRecord> findById(String id) throws IOException {
+        refresh();
+        List<StudentRecord> matches = new ArrayList<>(1);
+        for (long offset : probe(hash(ID_SEED, id))) {
+            StudentRecord student = readRow(offset);
+            if (student != null && student.getId().equals(id)) {
+                matches.add(student);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Every row registered with this email, ignoring case, in file order
+     */
+    public synchronized List<StudentRecord> findByEmail(String email) throws IOException {
+        refresh();
+        List<StudentRecord> matches = new ArrayList<>(1);
+        for (long offset : probe(hash(EMAIL_SEED, email.toLowerCase(Locale.ROOT)))) {
+            StudentRecord student = readRow(offset);
+            if (student != null && student.getEmail().equalsIgnoreCase(email)) {
+                matches.add(student);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Bring the index up to date with the CSV: index appended lines, or
+     * rebuild if the file was truncated or replaced
+     */
+    public synchronized void refresh() throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(csvFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            if (covered != 0) {
+                rebuild();
+            }
+            return;
+        }
+        if (csv == null || !Objects.equals(csvKey, attrs.fileKey())) {
+            if (csv != null) {
+                csv.close();
+            }
+            csv = FileChannel.open(csvFile, StandardOpenOption.READ);
+            csvKey = attrs.fileKey();
+            if (covered > 0 && !boundaryMatches()) {
+                rebuild();
+                return;
+            }
+        }
+        long size = csv.size();
+        if (size == covered) {
+            return;
+        }
+        // The same file may have been truncated and written again past the
+        // old end, so growth alone does not mean the covered bytes are intact
+        if (size < covered || (covered > 0 && !boundaryMatches())) {
+            rebuild();
+        } else {
+            indexFrom(covered, size);
+        }
+    }
+
+    /**
+     * Discard the index and build it again from the whole CSV
+     */
+    public synchronized void rebuild() throws IOException {
+        covered = 0;
+        count = 0;
+        replaceTable(MIN_CAPACITY, false);
+        if (csv != null && Files.exists(csvFile)) {
+            indexFrom(0, csv.size());
+        }
+    }
+
+    /**
+     * Number of rows indexed
+     */
+    public synchronized long size() {
+        return count / 2;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (csv != null) {
+                csv.close();
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Map the index file, or build a new one if it is missing or unreadable
+     */
+    private void load() throws IOException {
+        if (Files.exists(indexFile)) {
+            channel = FileChannel.open(indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = channel.size();
+            if (length >= HEADER_SIZE) {
+                table = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                capacity = table.getInt(8);
+                if (table.getInt(0) == MAGIC && table.getInt(4) == VERSION
+                        && Integer.bitCount(capacity) == 1
+                        && length == HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                    count = table.getLong(16);
+                    covered = table.getLong(24);
+                    return;
+                }
+            }
+            channel.close();
+            channel = null;
+        }
+        covered = 0;
+        count = 0;
+        replaceTable(MIN_CAPACITY, false);
+    }
+
+    /**
+     * Index the complete lines in [from, size) of the CSV
+     */
+    private void indexFrom(long from, long size) throws IOException {
+        long end = StudentCsvParser.lastLineEnd(csv, from, size);
+        if (end <= from) {
+            return;
+        }
+
+        // Collect first so the table is grown at most once per refresh
+        long[][] entries = {new long[256]};
+        int[] used = {0};
+        StudentCsvParser.scan(csv, from, end, new StudentCsvParser.LineSink() {
+            @Override
+            public void record(StudentRecord student, long offset, int length) {
+                if (used[0] + 4 > entries[0].length) {
+                    entries[0] = Arrays.copyOf(entries[0], entries[0].length * 2);
+                }
+                long[] e = entries[0];
+                e[used[0]++] = hash(ID_SEED, student.getId());
+                e[used[0]++] = offset;
+                e[used[0]++] = hash(EMAIL_SEED, student.getEmail().toLowerCase(Locale.ROOT));
+                e[used[0]++] = offset;
+            }
+
+            @Override
+            public void rejected(StudentCsvParser.Rejection rejection) {
+                // Rows that do not parse cannot be looked up
+            }
+        });
+
+        long needed = count + used[0] / 2;
+        if (needed * 2 > capacity) {
+            replaceTable(capacityFor(needed), true);
+        }
+        long[] e = entries[0];
+        for (int i = 0; i < used[0]; i += 2) {
+            insert(e[i], e[i + 1]);
+        }
+        covered = end;
+        table.putLong(16, count);
+        table.putLong(24, covered);
+        table.putLong(32, boundaryCrc(covered));
+    }
+
+    private static int capacityFor(long entries) throws IOException {
+        long capacity = MIN_CAPACITY;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        if (capacity > MAX_CAPACITY) {
+            throw new IOException("Too many rows for the student index: " + entries / 2);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Switch to a new table of {@code newCapacity} slots, written to a
+     * temporary file and moved over the index, optionally carrying the
+     * current entries across
+     */
+    private void replaceTable(int newCapacity, boolean keepEntries) throws IOException {
+        Path temp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        FileChannel newChannel = FileChannel.open(temp, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newTable;
+        try {
+            newTable = newChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+        } catch (IOException e) {
+            newChannel.close();
+            throw e;
+        }
+
+        MappedByteBuffer oldTable = table;
+        int oldCapacity = capacity;
+        FileChannel oldChannel = channel;
+        table = newTable;
+        capacity = newCapacity;
+        channel = newChannel;
+        count = 0;
+        if (keepEntries && oldTable != null) {
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int pos = HEADER_SIZE + slot * SLOT_SIZE;
+                long hash = oldTable.getLong(pos);
+                if (hash != 0) {
+                    insert(hash, oldTable.getLong(pos + 8));
+                }
+            }
+        } else {
+            covered = 0;
+        }
+        table.putInt(8, capacity);
+        table.putLong(16, count);
+        table.putLong(24, covered);
+        table.putLong(32, boundaryCrc(covered));
+        table.putInt(4, VERSION);
+        table.putInt(0, MAGIC);
+
+        Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (oldChannel != null) {
+            oldChannel.close();
+        }
+    }
+
+    /**
+     * Add a slot, skipping it if the same key and offset are already there
+     * (lines indexed again after an interrupted refresh)
+     */
+    private void insert(long hash, long offset) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            int pos = HEADER_SIZE + slot * SLOT_SIZE;
+            long existing = table.getLong(pos);
+            if (existing == 0) {
+                table.putLong(pos + 8, offset);
+                table.putLong(pos, hash);
+                count++;
+                return;
+            }
+            if (existing == hash && table.getLong(pos + 8) == offset) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Offsets of every slot with this hash, in file order
+     */
+    private long[] probe(long hash) {
+        long[] offsets = new long[4];
+        int found = 0;
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            int pos = HEADER_SIZE + slot * SLOT_SIZE;
+            long existing = table.getLong(pos);
+            if (existing == 0) {
+                break;
+            }
+            if (existing == hash) {
+                if (found == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, found * 2);
+                }
+                offsets[found++] = table.getLong(pos + 8);
+            }
+            slot = (slot + 1) & mask;
+        }
+        offsets = Arrays.copyOf(offsets, found);
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    /**
+     * Read and parse the row starting at {@code offset}
+     */
+    private StudentRecord readRow(long offset) throws IOException {
+        rowBuffer.clear();
+        while (true) {
+            int start = rowBuffer.position();
+            int n = csv.read(rowBuffer, offset + start);
+            byte[] bytes = rowBuffer.array();
+            int end = n < 0 ? start : start + n;
+            int from = offset == 0 ? StudentCsvParser.skipByteOrderMark(bytes, end) : 0;
+            for (int i = start; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    return parser.parse(bytes, from, i);
+                }
+            }
+            if (n < 0) {
+                return parser.parse(bytes, from, end);
+            }
+            if (!rowBuffer.hasRemaining()) {
+                rowBuffer = ByteBuffer.allocate(rowBuffer.capacity() * 2).put(rowBuffer.flip());
+            }
+        }
+    }
+
+    private boolean boundaryMatches() throws IOException {
+        return csv.size() >= covered && boundaryCrc(covered) == table.getLong(32);
+    }
+
+    private long boundaryCrc(long end) throws IOException {
+        return csv == null ? 0 : StudentCsvParser.boundaryCrc(csv, end);
+    }
+
+    /**
+     * 64-bit FNV-1a of the key's characters, finished with a MurmurHash3
+     * mix so that the low bits used for the slot are well spread; never 0,
+     * which marks an empty slot
+     */
+    private static long hash(long seed, String key) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
@@ -0,0 +1,98 @@
+package uk.studentregistration;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A single registered student, normalized from whichever students.csv row
+ * format it was read from
+ *
+ * Instances are immutable so they can be handed between parser threads and
+ * the GUI without copying.
+ */
+public final class StudentRecord {
+
+    /**
+     * Departments offered by the registration form, as stored in the file
+     */
+    public static final List<String> DEPARTMENTS =
+        List.of("Civil", "CSE", "Electrical", "Electronics", "Mechanical");
+
+    private final String id;
+    private final String firstName;
+    private final String lastName;
+    private final String gender;
+    private final String department;
+    private final LocalDate dateOfBirth;
+    private final String email;
+
+    /**
+     * Create a student record
+     */
+    public StudentRecord(String id, String firstName, String lastName, String gender,
+            String department, LocalDate dateOfBirth, String email) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.gender = gender;
+        this.department = department;
+        this.dateOfBirth = dateOfBirth;
+        this.email = email;
+    }
+
+    /**
+     * Student ID such as 2026-00004, without any "ID:" prefix
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * "M" or "F"
+     */
+    public String getGender() {
+        return gender;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * The record as one canonical comma-separated row, with an ISO date and
+     * no "ID:" prefix or padding
+     */
+    public String toCsvLine() {
+        return id + "," + firstName + "," + lastName + "," + gender + "," +
+            department + "," + dateOfBirth + "," + email;
+    }
+
+    /**
+     * The record as the registration form displays it
+     */
+    public String toDisplayString() {
+        return "ID: " + id + " | " + firstName + " " + lastName + " | " + gender +
+            " | " + department + " | " + dateOfBirth + " | " + email;
+    }
+
+    @Override
+    public String toString() {
+        return toDisplayString();
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package uk.studentregistration;
+
+/**
+ *
+ * @author fred
+ */
+public class StudentRegistration {
+
+    public static void main(String[] args) {
+        System.out.println("Hello World!");
+    }
+}
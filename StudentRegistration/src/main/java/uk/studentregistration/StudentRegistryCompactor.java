@@ -0,0 +1,434 @@
+package uk.studentregistration;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compacts students.csv into the binary registry read by
+ * {@link StudentRegistryReader}, merging students registered more than once
+ *
+ * Rows with the same email, ignoring case, are the same student registering
+ * again, and the last row wins. Rows that share an ID but not an email are
+ * different students given the same ID by the old line-counting generator.
+ * They are all kept and counted as ID conflicts so they can be re-issued.
+ *
+ * The CSV is streamed twice and never held in memory. The first pass maps
+ * each email's 64-bit hash to its last row number. The second pass writes
+ * only those rows. Departments and genders become one-byte dictionary codes
+ * and dates become epoch days.
+ *
+ * The compactor only reads the CSV, and only up to its last complete line
+ * when it starts. The registry is written to a temporary file and moved into
+ * place, so compaction can run while the form is still appending. Rows
+ * appended in the meantime are picked up by {@link StudentRegistryReader#load}
+ * and merged by the next compaction.
+ */
+public final class StudentRegistryCompactor {
+
+    // Field lengths are stored in one byte each
+    private static final int MAX_FIELD_BYTES = 255;
+
+    // Codes and the entry count are each stored in one byte
+    private static final int MAX_DICTIONARY_SIZE = 255;
+
+    private static final long EMAIL_SEED = 0x2545F4914F6CDD1DL;
+    private static final long ID_SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Counts from one compaction
+     */
+    public static final class Result {
+        private final long rowsRead;
+        private final long rejected;
+        private final long duplicatesMerged;
+        private final long idConflicts;
+        private final int written;
+        private final long sourceBytes;
+        private final long outputBytes;
+
+        Result(long rowsRead, long rejected, long duplicatesMerged, long idConflicts,
+                int written, long sourceBytes, long outputBytes) {
+            this.rowsRead = rowsRead;
+            this.rejected = rejected;
+            this.duplicatesMerged = duplicatesMerged;
+            this.idConflicts = idConflicts;
+            this.written = written;
+            this.sourceBytes = sourceBytes;
+            this.outputBytes = outputBytes;
+        }
+
+        public long getRowsRead() {
+            return rowsRead;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Rows dropped because a later row had the same email
+         */
+        public long getDuplicatesMerged() {
+            return duplicatesMerged;
+        }
+
+        /**
+         * Students written whose ID another written student already has
+         */
+        public long getIdConflicts() {
+            return idConflicts;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        public long getSourceBytes() {
+            return sourceBytes;
+        }
+
+        public long getOutputBytes() {
+            return outputBytes;
+        }
+
+        @Override
+        public String toString() {
+            return rowsRead + " rows read, " + rejected + " rejected, " + duplicatesMerged +
+                " duplicates merged, " + idConflicts + " ID conflicts; " + written +
+                " students written, " + sourceBytes + " -> " + outputBytes + " bytes";
+        }
+    }
+
+    private StudentRegistryCompactor() {
+    }
+
+    /**
+     * Compact {@code csv} into {@code registry}, replacing it atomically
+     */
+    public static Result compact(Path csv, Path registry) throws IOException {
+        try (FileChannel source = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long end = StudentCsvParser.lastLineEnd(source, 0, source.size());
+
+            // Pass 1: the last row number of each email
+            LongMap lastRowByEmail = new LongMap();
+            long[] rows = {0};
+            long[] rejected = {0};
+            StudentCsvParser.scan(source, 0, end, new StudentCsvParser.LineSink() {
+                @Override
+                public void record(StudentRecord student, long offset, int length) {
+                    lastRowByEmail.put(emailKey(student), rows[0]++);
+                }
+
+                @Override
+                public void rejected(StudentCsvParser.Rejection rejection) {
+                    rejected[0]++;
+                }
+            });
+
+            // Pass 2: write the surviving rows
+            Path temp = registry.resolveSibling(registry.getFileName() + ".tmp");
+            Path heapFile = registry.resolveSibling(registry.getFileName() + ".heap.tmp");
+            try {
+                Writer writer = new Writer(heapFile, lastRowByEmail.size());
+                try {
+                    LongMap emailById = new LongMap();
+                    long[] row = {0};
+                    long[] conflicts = {0};
+                    IOException[] failure = {null};
+                    StudentCsvParser.scan(source, 0, end, new StudentCsvParser.LineSink() {
+                        @Override
+                        public void record(StudentRecord student, long offset, int length) {
+                            long email = emailKey(student);
+                            if (lastRowByEmail.get(email) != row[0]++ || failure[0] != null) {
+                                return;
+                            }
+                            long id = hash(ID_SEED, student.getId());
+                            long owner = emailById.get(id);
+                            if (owner == LongMap.MISSING) {
+                                emailById.put(id, email);
+                            } else if (owner != email) {
+                                conflicts[0]++;
+                            }
+                            try {
+                                writer.add(student);
+                            } catch (IOException e) {
+                                failure[0] = e;
+                            }
+                        }
+
+                        @Override
+                        public void rejected(StudentCsvParser.Rejection rejection) {
+                        }
+                    });
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                    long outputBytes = writer.finish(temp, end, StudentCsvParser.boundaryCrc(source, end));
+                    Files.move(temp, registry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return new Result(rows[0] + rejected[0], rejected[0], rows[0] - writer.count,
+                        conflicts[0], writer.count, end, outputBytes);
+                } finally {
+                    writer.close();
+                }
+            } finally {
+                Files.deleteIfExists(heapFile);
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Compact a CSV from the command line:
+     * {@code StudentRegistryCompactor [students.csv] [students.reg]}
+     */
+    public static void main(String[] args) throws IOException {
+        Path csv = Path.of(args.length > 0 ? args[0] : "students.csv");
+        Path registry = Path.of(args.length > 1 ? args[1] : "students.reg");
+        long start = System.nanoTime();
+        Result result = compact(csv, registry);
+        System.out.println(result);
+        System.out.printf("Compacted %s into %s in %d ms%n", csv, registry,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long emailKey(StudentRecord student) {
+        return hash(EMAIL_SEED, student.getEmail().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 64-bit FNV-1a finished with a MurmurHash3 mix; never
+     * {@link LongMap#EMPTY}
+     */
+    private static long hash(long seed, String key) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h == LongMap.EMPTY ? 1 : h;
+    }
+
+    /**
+     * Builds the record table in memory and streams the string heap to a
+     * temporary file, then writes the registry in one go
+     */
+    private static final class Writer {
+        private final OutputStream heap;
+        private final List<String> departments = new ArrayList<>();
+        private final List<String> genders = new ArrayList<>();
+        private ByteBuffer records;
+        private long heapLength;
+        private final Path heapFile;
+        int count;
+
+        Writer(Path heapFile, int expected) throws IOException {
+            this.heapFile = heapFile;
+            this.heap = new BufferedOutputStream(Files.newOutputStream(heapFile), 1 << 16);
+            this.records = ByteBuffer.allocate(Math.max(16, expected) * StudentRegistryReader.RECORD_SIZE);
+        }
+
+        void add(StudentRecord student) throws IOException {
+            byte[] id = field(student.getId(), "ID");
+            byte[] firstName = field(student.getFirstName(), "first name");
+            byte[] lastName = field(student.getLastName(), "last name");
+            byte[] email = field(student.getEmail(), "email");
+            if (heapLength + id.length + firstName.length + lastName.length + email.length
+                    > Integer.MAX_VALUE) {
+                throw new IOException("Student registry string heap exceeds 2 GB");
+            }
+            if (!records.hasRemaining()) {
+                records = ByteBuffer.allocate(records.capacity() * 2).put(records.flip());
+            }
+
+            records.putInt((int) heapLength);
+            records.putInt((int) student.getDateOfBirth().toEpochDay());
+            records.put(code(departments, student.getDepartment(), "departments"));
+            records.put(code(genders, student.getGender(), "genders"));
+            records.put((byte) id.length);
+            records.put((byte) firstName.length);
+            records.put((byte) lastName.length);
+            records.put((byte) email.length);
+            records.put(isAscii(id, firstName, lastName, email) ? StudentRegistryReader.FLAG_ASCII : 0);
+            records.put((byte) 0);
+
+            heap.write(id);
+            heap.write(firstName);
+            heap.write(lastName);
+            heap.write(email);
+            heapLength += id.length + firstName.length + lastName.length + email.length;
+            count++;
+        }
+
+        /**
+         * Write header, dictionaries, records and heap to {@code file},
+         * returning its size
+         */
+        long finish(Path file, long sourceBytes, long sourceCrc) throws IOException {
+            heap.close();
+            ByteBuffer dictionaries = ByteBuffer.allocate(2 + 256 * (departments.size() + genders.size()));
+            writeDictionary(dictionaries, departments);
+            writeDictionary(dictionaries, genders);
+            dictionaries.flip();
+
+            long recordsOffset = align8(StudentRegistryReader.HEADER_SIZE + dictionaries.remaining());
+            long recordsLength = (long) count * StudentRegistryReader.RECORD_SIZE;
+            long heapOffset = recordsOffset + recordsLength;
+            if (heapOffset + heapLength > Integer.MAX_VALUE) {
+                throw new IOException("Student registry exceeds 2 GB");
+            }
+
+            ByteBuffer header = ByteBuffer.allocate((int) recordsOffset);
+            header.putInt(StudentRegistryReader.MAGIC);
+            header.putInt(StudentRegistryReader.VERSION);
+            header.putInt(count);
+            header.putInt(dictionaries.remaining());
+            header.putLong(sourceBytes);
+            header.putLong(sourceCrc);
+            header.putLong(recordsOffset);
+            header.putLong(heapOffset);
+            header.putLong(heapLength);
+            header.position(StudentRegistryReader.HEADER_SIZE);
+            header.put(dictionaries);
+            header.clear();
+
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 FileChannel in = FileChannel.open(heapFile, StandardOpenOption.READ)) {
+                records.flip();
+                ByteBuffer[] parts = {header, records};
+                while (header.hasRemaining() || records.hasRemaining()) {
+                    out.write(parts);
+                }
+                long copied = 0;
+                while (copied < heapLength) {
+                    copied += in.transferTo(copied, heapLength - copied, out);
+                }
+                out.force(true);
+                return out.size();
+            }
+        }
+
+        void close() throws IOException {
+            heap.close();
+        }
+
+        private static boolean isAscii(byte[]... fields) {
+            for (byte[] field : fields) {
+                for (byte b : field) {
+                    if (b < 0) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static byte[] field(String value, String name) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_FIELD_BYTES) {
+                throw new IOException("Student " + name + " longer than " + MAX_FIELD_BYTES +
+                    " bytes: " + value);
+            }
+            return bytes;
+        }
+
+        private static byte code(List<String> dictionary, String value, String name) throws IOException {
+            int code = dictionary.indexOf(value);
+            if (code < 0) {
+                if (dictionary.size() == MAX_DICTIONARY_SIZE) {
+                    throw new IOException("More than " + MAX_DICTIONARY_SIZE + " distinct " + name);
+                }
+                code = dictionary.size();
+                dictionary.add(value);
+            }
+            return (byte) code;
+        }
+
+        private static void writeDictionary(ByteBuffer out, List<String> dictionary) throws IOException {
+            out.put((byte) dictionary.size());
+            for (String value : dictionary) {
+                byte[] bytes = field(value, "dictionary entry");
+                out.put((byte) bytes.length);
+                out.put(bytes);
+            }
+        }
+
+        private static long align8(long offset) {
+            return (offset + 7) & ~7L;
+        }
+    }
+
+    /**
+     * Open-addressing map from a non-zero long key to a long value, so that
+     * millions of rows cost 16 bytes a slot instead of an object each
+     */
+    private static final class LongMap {
+        static final long EMPTY = 0;
+        static final long MISSING = Long.MIN_VALUE;
+
+        private long[] keys = new long[1 << 10];
+        private long[] values = new long[1 << 10];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = (int) key & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return MISSING;
+                }
+            }
+        }
+
+        void put(long key, long value) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = (int) key & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                size++;
+            }
+            values[i] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
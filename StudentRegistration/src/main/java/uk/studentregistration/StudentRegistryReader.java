@@ -0,0 +1,225 @@
+package uk.studentregistration;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Memory-mapped reader for the compact binary registry written by
+ * {@link StudentRegistryCompactor}
+ *
+ * File layout, all integers big-endian:
+ * <pre>
+ * header     64 bytes: magic, version, record count, dictionary length,
+ *            source bytes, source CRC, records offset, heap offset, heap length
+ * dictionary department count, then length-prefixed UTF-8 names;
+ *            gender count, then the same
+ * records    16 bytes each: heap offset, epoch day of birth, department code,
+ *            gender code, byte lengths of ID, first name, last name, email,
+ *            flags, padding
+ * heap       the UTF-8 strings of every record, back to back
+ * </pre>
+ * Records are fixed width, so {@link #get} goes straight to any record
+ * without decoding the ones before it. "Source bytes" is how much of
+ * students.csv the registry was compacted from; {@link #load} parses only
+ * the rows appended after that point.
+ *
+ * Reads are absolute, so one reader can be shared between threads.
+ */
+public final class StudentRegistryReader implements AutoCloseable {
+
+    static final int MAGIC = 0x53524731; // "SRG1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 16;
+
+    // Record flag: the record's strings are all ASCII and decode as a plain copy
+    static final byte FLAG_ASCII = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final long sourceBytes;
+    private final long sourceCrc;
+    private final int recordsOffset;
+    private final int heapOffset;
+    private final List<String> departments;
+    private final List<String> genders;
+
+    private StudentRegistryReader(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a student registry file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported student registry version " + buffer.getInt(4));
+        }
+        count = buffer.getInt(8);
+        sourceBytes = buffer.getLong(16);
+        sourceCrc = buffer.getLong(24);
+        recordsOffset = (int) buffer.getLong(32);
+        heapOffset = (int) buffer.getLong(40);
+        if (recordsOffset + (long) count * RECORD_SIZE > heapOffset
+                || heapOffset + buffer.getLong(48) > buffer.limit()) {
+            throw new IOException("Truncated student registry file");
+        }
+
+        int[] position = {HEADER_SIZE};
+        departments = readDictionary(position);
+        genders = readDictionary(position);
+    }
+
+    /**
+     * Map a registry file
+     */
+    public static StudentRegistryReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Student registry too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new StudentRegistryReader(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Every student: the compacted registry plus any rows appended to
+     * {@code csv} since it was written
+     *
+     * Appended rows are returned as they are; they are merged the next time
+     * the registry is compacted. If there is no registry, or the CSV was
+     * rewritten since the registry was built, the whole CSV is parsed.
+     */
+    public static List<StudentRecord> load(Path registry, Path csv) throws IOException {
+        if (!Files.exists(registry)) {
+            return Files.exists(csv) ? StudentCsvParser.readAll(csv) : new ArrayList<>();
+        }
+        try (StudentRegistryReader reader = open(registry)) {
+            if (!Files.exists(csv)) {
+                return reader.readAll();
+            }
+            try (FileChannel source = FileChannel.open(csv, StandardOpenOption.READ)) {
+                long size = source.size();
+                if (size < reader.sourceBytes
+                        || StudentCsvParser.boundaryCrc(source, reader.sourceBytes) != reader.sourceCrc) {
+                    return StudentCsvParser.readAll(csv);
+                }
+                List<StudentRecord> students = reader.readAll();
+                StudentCsvParser.scan(source, reader.sourceBytes, size, new StudentCsvParser.LineSink() {
+                    @Override
+                    public void record(StudentRecord student, long offset, int length) {
+                        students.add(student);
+                    }
+
+                    @Override
+                    public void rejected(StudentCsvParser.Rejection rejection) {
+                        // Skipped, as by StudentCsvParser.readAll
+                    }
+                });
+                return students;
+            }
+        }
+    }
+
+    /**
+     * Number of students in the registry
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Bytes of students.csv the registry was compacted from
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * Department dictionary, indexed by code
+     */
+    public List<String> getDepartments() {
+        return departments;
+    }
+
+    /**
+     * The student at {@code index}, 0 to {@link #size()} - 1
+     */
+    public StudentRecord get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+        }
+        int record = recordsOffset + index * RECORD_SIZE;
+        int heap = heapOffset + buffer.getInt(record);
+        LocalDate dateOfBirth = LocalDate.ofEpochDay(buffer.getInt(record + 4));
+        String department = departments.get(buffer.get(record + 8) & 0xFF);
+        String gender = genders.get(buffer.get(record + 9) & 0xFF);
+        int idLength = buffer.get(record + 10) & 0xFF;
+        int firstLength = buffer.get(record + 11) & 0xFF;
+        int lastLength = buffer.get(record + 12) & 0xFF;
+        int emailLength = buffer.get(record + 13) & 0xFF;
+        Charset charset = (buffer.get(record + 14) & FLAG_ASCII) != 0
+            ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8;
+
+        byte[] strings = new byte[idLength + firstLength + lastLength + emailLength];
+        buffer.get(heap, strings);
+        int p = 0;
+        String id = new String(strings, p, idLength, charset);
+        p += idLength;
+        String firstName = new String(strings, p, firstLength, charset);
+        p += firstLength;
+        String lastName = new String(strings, p, lastLength, charset);
+        p += lastLength;
+        String email = new String(strings, p, emailLength, charset);
+        return new StudentRecord(id, firstName, lastName, gender, department, dateOfBirth, email);
+    }
+
+    /**
+     * Every student in the registry, in registry order
+     */
+    public List<StudentRecord> readAll() {
+        List<StudentRecord> students = new ArrayList<>(count + 16);
+        for (int i = 0; i < count; i++) {
+            students.add(get(i));
+        }
+        return students;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<String> readDictionary(int[] position) {
+        int p = position[0];
+        int size = buffer.get(p++) & 0xFF;
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = buffer.get(p++) & 0xFF;
+            byte[] bytes = new byte[length];
+            buffer.get(p, bytes);
+            p += length;
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            // Share the parser's constants for the usual departments
+            int known = StudentRecord.DEPARTMENTS.indexOf(value);
+            values.add(known >= 0 ? StudentRecord.DEPARTMENTS.get(known) : value);
+        }
+        position[0] = p;
+        return Collections.unmodifiableList(values);
+    }
+}